@@ -0,0 +1,83 @@
+package com.mchudzik.restapi.benchmarks;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.mchudzik.restapi.assemblers.TaskModelAssembler;
+import com.mchudzik.restapi.assemblers.UserModelAssembler;
+import com.mchudzik.restapi.controllers.TaskController;
+import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.models.User;
+
+/**
+ * Per-entity cost of building the HATEOAS links in the model assemblers,
+ * inside a request as in a list endpoint. {@code taskToModelViaMethodOn}
+ * builds the same links the way the assemblers did before link templates
+ * were cached per request, as the baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AssemblerBenchmark {
+    private TaskModelAssembler taskAssembler;
+    private UserModelAssembler userAssembler;
+    private Task task;
+    private User user;
+
+    @Setup
+    public void setUp()
+    {
+        taskAssembler = new TaskModelAssembler();
+        userAssembler = new UserModelAssembler();
+        task = BenchmarkData.task(42);
+        user = BenchmarkData.user(42);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest("GET", "/tasks")));
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public EntityModel<Task> taskToModel()
+    {
+        return taskAssembler.toModel(task);
+    }
+
+    @Benchmark
+    public EntityModel<User> userToModel()
+    {
+        return userAssembler.toModel(user);
+    }
+
+    @Benchmark
+    public EntityModel<Task> taskToModelViaMethodOn()
+    {
+        return EntityModel.of(task,
+        linkTo(methodOn(TaskController.class).findTaskByID(task.getId(), null)).withSelfRel(),
+        linkTo(methodOn(TaskController.class).listTasks(null, null, null, null, null)).withRel("tasks").expand());
+    }
+}
@@ -0,0 +1,70 @@
+package com.mchudzik.restapi.benchmarks;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.models.User;
+
+/**
+ * Deterministic fixtures shared by the benchmarks.
+ */
+final class BenchmarkData {
+    static final int USERS = 100;
+
+    private static final Status[] STATUSES = Status.values();
+    private static final String[] WORDS = {"hakowanie", "naprawianie", "pisanie", "testowanie", "wdrazanie", "spotkanie", "raport", "analiza"};
+
+    private BenchmarkData() {}
+
+    static String taskName(long i)
+    {
+        return WORDS[(int) (i % WORDS.length)] + " " + i;
+    }
+
+    static String taskDesc(long i)
+    {
+        return WORDS[(int) ((i / WORDS.length) % WORDS.length)] + " " + WORDS[(int) ((i * 7) % WORDS.length)];
+    }
+
+    static Status taskStatus(long i)
+    {
+        return STATUSES[(int) (i % STATUSES.length)];
+    }
+
+    static LocalDate taskFinishDate(long i)
+    {
+        return LocalDate.ofEpochDay(i % 3650);
+    }
+
+    static long taskAssignee(long i)
+    {
+        return i % USERS + 1;
+    }
+
+    static Task task(long i)
+    {
+        Task task = new Task(taskName(i), taskDesc(i), taskStatus(i), taskFinishDate(i));
+        task.setID(i);
+        task.addUser(taskAssignee(i));
+        return task;
+    }
+
+    static List<Task> tasks(int count)
+    {
+        List<Task> tasks = new ArrayList<>(count);
+        for (long i = 1; i <= count; i++) {
+            tasks.add(task(i));
+        }
+        return tasks;
+    }
+
+    static User user(long i)
+    {
+        User user = new User("jan" + i, "jowalski" + i, "jjowalski" + i + "@gmail.com");
+        user.setID(i);
+        return user;
+    }
+}
@@ -0,0 +1,152 @@
+package com.mchudzik.restapi.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load generator: {@code clients} concurrent clients each
+ * send a GET, wait for the response and immediately send the next one until
+ * the duration elapses. Prints throughput and latency percentiles as one
+ * JSON object so runs can be compared between modes and commits.
+ * <p>
+ * Further {@code <url> <clients>} pairs run alongside the first, with a line
+ * each, to see how one kind of request fares while another floods the
+ * server, e.g. id lookups during a burst of unpaginated listings.
+ * <p>
+ * Throughput and percentiles cover only the {@code accepted} responses,
+ * those below 400. Responses turned away with 429 or 503 are counted as
+ * {@code rejected}, with percentiles of their own, and other failures as
+ * {@code errors}; fast rejections would otherwise flatter both the
+ * throughput and the tail latency.
+ *
+ * <pre>
+ * mvn -Pjmh -DskipTests test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.mchudzik.restapi.benchmarks.HttpLoadTest \
+ *     -Dexec.args="http://localhost:8080/tasks/byStatus?status=NEW 1000 30"
+ * mvn -Pjmh -DskipTests test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.mchudzik.restapi.benchmarks.HttpLoadTest \
+ *     -Dexec.args="http://localhost:8080/tasks/1 20 30 http://localhost:8080/tasks 200"
+ * </pre>
+ */
+public final class HttpLoadTest {
+    private static final long BUCKET_MICROS = 100;
+    private static final int BUCKETS = 600_000;
+
+    private final HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    private final Histogram accepted = new Histogram();
+    private final Histogram rejected = new Histogram();
+    private final LongAdder errors = new LongAdder();
+    private final HttpRequest request;
+    private final long deadline;
+    private final CountDownLatch done;
+
+    private HttpLoadTest(URI uri, int clients, long deadline)
+    {
+        this.request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).build();
+        this.deadline = deadline;
+        this.done = new CountDownLatch(clients);
+    }
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        if (args.length < 3 || args.length % 2 == 0) {
+            System.err.println("usage: HttpLoadTest <url> <clients> <seconds> [<url> <clients>]...");
+            System.exit(2);
+        }
+        int seconds = Integer.parseInt(args[2]);
+
+        long start = System.nanoTime();
+        long deadline = start + Duration.ofSeconds(seconds).toNanos();
+        List<HttpLoadTest> tests = new ArrayList<>();
+        List<Integer> clients = new ArrayList<>();
+        for (int i = 0; i < args.length; i += i == 0 ? 3 : 2) {
+            int count = Integer.parseInt(args[i + 1]);
+            tests.add(new HttpLoadTest(URI.create(args[i]), count, deadline));
+            clients.add(count);
+        }
+        for (int i = 0; i < tests.size(); i++) {
+            for (int j = 0; j < clients.get(i); j++) {
+                tests.get(i).send();
+            }
+        }
+        for (HttpLoadTest test : tests) {
+            test.done.await();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        for (int i = 0; i < tests.size(); i++) {
+            HttpLoadTest test = tests.get(i);
+            System.out.printf(
+                "{\"url\":\"%s\",\"clients\":%d,\"seconds\":%.1f,\"accepted\":%d,\"rejected\":%d,\"errors\":%d,\"throughput\":%.1f,"
+                    + "\"p50Ms\":%.1f,\"p99Ms\":%.1f,\"p999Ms\":%.1f,\"rejectedP50Ms\":%.1f,\"rejectedP99Ms\":%.1f}%n",
+                test.request.uri(), clients.get(i), elapsed, test.accepted.count(), test.rejected.count(), test.errors.sum(), test.accepted.count() / elapsed,
+                test.accepted.percentile(0.50), test.accepted.percentile(0.99), test.accepted.percentile(0.999),
+                test.rejected.percentile(0.50), test.rejected.percentile(0.99));
+        }
+    }
+
+    private void send()
+    {
+        if (System.nanoTime() >= deadline) {
+            done.countDown();
+            return;
+        }
+        long sent = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+            long nanos = System.nanoTime() - sent;
+            if (failure != null) {
+                errors.increment();
+            } else if (response.statusCode() == 429 || response.statusCode() == 503) {
+                rejected.record(nanos);
+            } else if (response.statusCode() >= 400) {
+                errors.increment();
+            } else {
+                accepted.record(nanos);
+            }
+            send();
+        });
+    }
+
+    /**
+     * Latencies in {@code BUCKET_MICROS} buckets, the last one collecting
+     * everything from a minute on.
+     */
+    private static final class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+
+        void record(long nanos)
+        {
+            int bucket = (int) Math.min(nanos / 1000 / BUCKET_MICROS, BUCKETS - 1);
+            buckets.incrementAndGet(bucket);
+            count.increment();
+        }
+
+        long count()
+        {
+            return count.sum();
+        }
+
+        double percentile(double quantile)
+        {
+            long target = (long) Math.ceil(count.sum() * quantile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= target && target > 0) {
+                    return (i + 1) * BUCKET_MICROS / 1000.0;
+                }
+            }
+            return 0;
+        }
+    }
+}
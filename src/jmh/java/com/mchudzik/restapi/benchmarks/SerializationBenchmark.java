@@ -0,0 +1,73 @@
+package com.mchudzik.restapi.benchmarks;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DelegatingLinkRelationProvider;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mchudzik.restapi.assemblers.TaskModelAssembler;
+import com.mchudzik.restapi.models.Task;
+
+/**
+ * HAL serialization of the collection returned by {@code GET /tasks}.
+ * The object mapper is configured the way Spring HATEOAS configures its HAL mapper.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    @Param({"100", "10000"})
+    public int size;
+
+    private ObjectMapper mapper;
+    private CollectionModel<EntityModel<Task>> model;
+
+    @Setup
+    public void setUp()
+    {
+        mapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .registerModule(new Jackson2HalModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+            new DelegatingLinkRelationProvider(new DefaultLinkRelationProvider()), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+
+        TaskModelAssembler assembler = new TaskModelAssembler();
+        List<EntityModel<Task>> tasks = BenchmarkData.tasks(size).stream()
+            .map(assembler::toModel)
+            .collect(Collectors.toList());
+        model = CollectionModel.of(tasks, Link.of("http://localhost/tasks"));
+    }
+
+    @Benchmark
+    public void serializeCollection() throws Exception
+    {
+        mapper.writeValue(OutputStream.nullOutputStream(), model);
+    }
+}
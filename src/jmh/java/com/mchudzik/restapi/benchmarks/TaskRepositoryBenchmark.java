@@ -0,0 +1,131 @@
+package com.mchudzik.restapi.benchmarks;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.mchudzik.restapi.RestAPIApplication;
+import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.repositories.TaskRepository;
+import com.mchudzik.restapi.search.SearchIndexInitializer;
+import com.mchudzik.restapi.search.TaskSearchIndex;
+
+/**
+ * Derived {@link TaskRepository} queries against an in-memory H2 database,
+ * plus the trigram index against the LIKE query it replaced. Rows are
+ * inserted through JDBC batches; the second-level and query caches are off
+ * so every invocation reaches the database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class TaskRepositoryBenchmark {
+    private static final int INSERT_BATCH = 10_000;
+    private static final String SEARCH_QUERY = "4242";
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private TaskRepository repo;
+    private TaskSearchIndex searchIndex;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        context = new SpringApplicationBuilder(RestAPIApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "spring.jpa.properties.hibernate.cache.use_query_cache=false")
+            .run();
+        repo = context.getBean(TaskRepository.class);
+        searchIndex = context.getBean(TaskSearchIndex.class);
+
+        seed(context.getBean(JdbcTemplate.class));
+        context.getBean(SearchIndexInitializer.class).rebuild();
+    }
+
+    private void seed(JdbcTemplate jdbc)
+    {
+        for (long from = 1; from <= rows; from += INSERT_BATCH) {
+            long to = Math.min(from + INSERT_BATCH - 1, rows);
+            List<Object[]> tasks = new ArrayList<>();
+            List<Object[]> assignees = new ArrayList<>();
+            for (long i = from; i <= to; i++) {
+                tasks.add(new Object[] {i, BenchmarkData.taskName(i), BenchmarkData.taskDesc(i),
+                    BenchmarkData.taskStatus(i).name(), Date.valueOf(BenchmarkData.taskFinishDate(i))});
+                assignees.add(new Object[] {i, BenchmarkData.taskAssignee(i)});
+            }
+            jdbc.batchUpdate("insert into \"task\" (\"id\", \"name\", \"desc\", \"status\", \"finish_date\", \"version\") values (?, ?, ?, ?, ?, 0)", tasks);
+            jdbc.batchUpdate("insert into \"task_assigned_users\" (\"task_id\", \"user_id\") values (?, ?)", assignees);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Task> findAllByStatus()
+    {
+        return repo.findAllByStatus(Status.IN_VERIFICATION);
+    }
+
+    @Benchmark
+    public List<Task> findAllByFinishDateBetween()
+    {
+        return repo.findAllByFinishDateBetween(LocalDate.ofEpochDay(100), LocalDate.ofEpochDay(102));
+    }
+
+    @Benchmark
+    public List<Task> findAllByFinishDateLessThanEqual()
+    {
+        return repo.findAllByFinishDateLessThanEqual(LocalDate.ofEpochDay(2));
+    }
+
+    @Benchmark
+    public List<Task> findAllByAssignedUser()
+    {
+        return repo.findAllByAssignedUser(42L);
+    }
+
+    @Benchmark
+    public List<Task> searchByLike()
+    {
+        return repo.findAllByNameContainingOrDescContainingAllIgnoreCase(SEARCH_QUERY, SEARCH_QUERY);
+    }
+
+    @Benchmark
+    public List<Task> searchByTrigramIndex()
+    {
+        return repo.findAllById(searchIndex.search(SEARCH_QUERY));
+    }
+}
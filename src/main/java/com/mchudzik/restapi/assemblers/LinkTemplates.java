@@ -0,0 +1,63 @@
+package com.mchudzik.restapi.assemblers;
+
+import java.util.function.Supplier;
+
+import org.springframework.hateoas.Link;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Links of an entity model with the item link split around its single
+ * template variable, so that expanding it for an id is a string concatenation.
+ * Built once per request from the current base URI; outside of a request
+ * every call builds a fresh instance.
+ */
+final class LinkTemplates {
+    private final Link self;
+    private final String selfPrefix;
+    private final String selfSuffix;
+    private final Link collection;
+
+    LinkTemplates(Link selfTemplate, Link collection)
+    {
+        String href = selfTemplate.getHref();
+        int start = href.indexOf('{');
+        int end = href.indexOf('}', start);
+        if (start < 0 || end < 0 || href.indexOf('{', end) >= 0) {
+            throw new IllegalArgumentException("Expected exactly one template variable in " + href);
+        }
+        this.self = selfTemplate;
+        this.selfPrefix = href.substring(0, start);
+        this.selfSuffix = href.substring(end + 1);
+        this.collection = collection;
+    }
+
+    static LinkTemplates forCurrentRequest(String attribute, Supplier<LinkTemplates> factory)
+    {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return factory.get();
+        }
+        LinkTemplates links = (LinkTemplates) attributes.getAttribute(attribute, RequestAttributes.SCOPE_REQUEST);
+        if (links == null) {
+            links = factory.get();
+            attributes.setAttribute(attribute, links, RequestAttributes.SCOPE_REQUEST);
+        }
+        return links;
+    }
+
+    Link self(Long id)
+    {
+        return Link.of(selfPrefix + id + selfSuffix, self.getRel());
+    }
+
+    Link collection()
+    {
+        return collection;
+    }
+
+    Link item(String rel)
+    {
+        return self.withRel(rel);
+    }
+}
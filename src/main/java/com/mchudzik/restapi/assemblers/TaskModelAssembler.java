@@ -1,21 +1,64 @@
 package com.mchudzik.restapi.assemblers;
 
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
 import com.mchudzik.restapi.controllers.TaskController;
 import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.models.TaskFields;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 @Component
 public class TaskModelAssembler implements RepresentationModelAssembler<Task,EntityModel<Task>> {
+    private static final String LINKS_ATTRIBUTE = TaskModelAssembler.class.getName() + ".links";
+
     @Override
     public EntityModel<Task> toModel(Task task)
     {
-        return EntityModel.of(task, 
-        linkTo(methodOn(TaskController.class).findTaskByID(task.getId())).withSelfRel(),
-        linkTo(methodOn(TaskController.class).listTasks()).withRel("tasks"));
+        LinkTemplates links = LinkTemplates.forCurrentRequest(LINKS_ATTRIBUTE, TaskModelAssembler::createLinks);
+
+        return EntityModel.of(task, links.self(task.getId()), links.collection());
+    }
+
+    /**
+     * Model for an item of a collection, which has no links in the compact
+     * view.
+     */
+    public EntityModel<Task> toCollectionItem(Task task)
+    {
+        return Views.compactRequested() ? EntityModel.of(task) : toModel(task);
+    }
+
+    public EntityModel<TaskFields> toCollectionItem(TaskFields task)
+    {
+        if (Views.compactRequested()) {
+            return EntityModel.of(task);
+        }
+        LinkTemplates links = LinkTemplates.forCurrentRequest(LINKS_ATTRIBUTE, TaskModelAssembler::createLinks);
+
+        return EntityModel.of(task, links.self(task.getId()), links.collection());
+    }
+
+    /**
+     * In the compact view, adds the templated item link that replaces the
+     * links left off the items, and keeps the view on the collection links.
+     */
+    public <C extends CollectionModel<?>> C applyView(C collection)
+    {
+        if (Views.compactRequested()) {
+            Views.keepOnLinks(collection);
+            collection.add(LinkTemplates.forCurrentRequest(LINKS_ATTRIBUTE, TaskModelAssembler::createLinks).item("task"));
+        }
+        return collection;
+    }
+
+    private static LinkTemplates createLinks()
+    {
+        return new LinkTemplates(
+        linkTo(methodOn(TaskController.class).findTaskByID(null, null)).withSelfRel(),
+        linkTo(methodOn(TaskController.class).listTasks(null, null, null, null, null)).withRel("tasks").expand());
     }
 }
@@ -1,22 +1,64 @@
 package com.mchudzik.restapi.assemblers;
 
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
 import com.mchudzik.restapi.controllers.UserController;
 import com.mchudzik.restapi.models.User;
+import com.mchudzik.restapi.models.UserFields;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 @Component
 public class UserModelAssembler implements  RepresentationModelAssembler<User,EntityModel<User>>{
-    
+    private static final String LINKS_ATTRIBUTE = UserModelAssembler.class.getName() + ".links";
+
     @Override
     public EntityModel<User> toModel(User user)
     {
-        return EntityModel.of(user, 
-        linkTo(methodOn(UserController.class).findUserByID(user.getId())).withSelfRel(),
-        linkTo(methodOn(UserController.class).listUsers()).withRel("users"));
+        LinkTemplates links = LinkTemplates.forCurrentRequest(LINKS_ATTRIBUTE, UserModelAssembler::createLinks);
+
+        return EntityModel.of(user, links.self(user.getId()), links.collection());
+    }
+
+    /**
+     * Model for an item of a collection, which has no links in the compact
+     * view.
+     */
+    public EntityModel<User> toCollectionItem(User user)
+    {
+        return Views.compactRequested() ? EntityModel.of(user) : toModel(user);
+    }
+
+    public EntityModel<UserFields> toCollectionItem(UserFields user)
+    {
+        if (Views.compactRequested()) {
+            return EntityModel.of(user);
+        }
+        LinkTemplates links = LinkTemplates.forCurrentRequest(LINKS_ATTRIBUTE, UserModelAssembler::createLinks);
+
+        return EntityModel.of(user, links.self(user.getId()), links.collection());
+    }
+
+    /**
+     * In the compact view, adds the templated item link that replaces the
+     * links left off the items, and keeps the view on the collection links.
+     */
+    public <C extends CollectionModel<?>> C applyView(C collection)
+    {
+        if (Views.compactRequested()) {
+            Views.keepOnLinks(collection);
+            collection.add(LinkTemplates.forCurrentRequest(LINKS_ATTRIBUTE, UserModelAssembler::createLinks).item("user"));
+        }
+        return collection;
+    }
+
+    private static LinkTemplates createLinks()
+    {
+        return new LinkTemplates(
+        linkTo(methodOn(UserController.class).findUserByID(null, null)).withSelfRel(),
+        linkTo(methodOn(UserController.class).listUsers(null, null, null, null, null)).withRel("users").expand());
     }
 }
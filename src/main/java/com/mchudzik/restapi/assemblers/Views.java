@@ -0,0 +1,84 @@
+package com.mchudzik.restapi.assemblers;
+
+import org.springframework.hateoas.Links;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Representation selected by the current request. The compact view leaves
+ * the links off the items of a collection and keeps only the collection's
+ * own links plus one templated item link, which clients expand with the id.
+ * It is asked for with {@code ?view=compact} or with a {@code view=compact}
+ * parameter on the accepted media type, e.g.
+ * {@code Accept: application/hal+json;view=compact}. As the view may then
+ * depend on the Accept header, the first look at it adds
+ * {@code Vary: Accept} to the response.
+ */
+public final class Views {
+    public static final String PARAMETER = "view";
+    public static final String COMPACT = "compact";
+
+    private static final String COMPACT_ATTRIBUTE = Views.class.getName() + ".compact";
+
+    private Views() {}
+
+    public static boolean compactRequested()
+    {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return false;
+        }
+        Boolean compact = (Boolean) attributes.getAttribute(COMPACT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (compact == null) {
+            compact = compactRequested(servletAttributes.getRequest());
+            attributes.setAttribute(COMPACT_ATTRIBUTE, compact, RequestAttributes.SCOPE_REQUEST);
+            varyOnAccept(servletAttributes.getResponse());
+        }
+        return compact;
+    }
+
+    /**
+     * Adds the view parameter to the links of {@code model} that are not
+     * templates, so following them stays in the compact view.
+     */
+    static void keepOnLinks(RepresentationModel<?> model)
+    {
+        Links links = model.getLinks();
+        model.removeLinks();
+        links.forEach(link -> model.add(link.isTemplated() ? link
+            : link.withHref(UriComponentsBuilder.fromUriString(link.getHref()).replaceQueryParam(PARAMETER, COMPACT).toUriString())));
+    }
+
+    private static void varyOnAccept(HttpServletResponse response)
+    {
+        if (response != null && response.getHeaders(HttpHeaders.VARY).stream().noneMatch(HttpHeaders.ACCEPT::equalsIgnoreCase)) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+    }
+
+    private static boolean compactRequested(HttpServletRequest request)
+    {
+        if (COMPACT.equals(request.getParameter(PARAMETER))) {
+            return true;
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return false;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+            .anyMatch(mediaType -> COMPACT.equals(mediaType.getParameter(PARAMETER)));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.mchudzik.restapi.changes;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.models.Task;
+
+/**
+ * One change to a task, published as an application event by the mutation
+ * paths and delivered by {@link TaskChangeFeed} once the transaction that
+ * made it has committed. Only the fields the change touched are set:
+ * created and updated tasks carry their state, status changes the new
+ * status, and assignments the users assigned or unassigned. {@code version}
+ * is left out where it is only known after the commit.
+ * <p>
+ * Updates, status changes and deletes also carry the {@code previous} state
+ * of the task, read in the transaction that replaced it, for listeners that
+ * count tasks. It is not sent to clients.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TaskChange(Type type, Long taskId, Long version, String name, String desc, Status status, LocalDate finishDate, List<Long> userIds,
+    @JsonIgnore State previous) {
+
+    public enum Type {
+        CREATED, UPDATED, STATUS_CHANGED, ASSIGNED, UNASSIGNED, DELETED
+    }
+
+    /**
+     * The counted fields of a task. {@code userIds} is only set for a
+     * deleted task.
+     */
+    public record State(Status status, LocalDate finishDate, List<Long> userIds) {
+
+        public static State of(Task task)
+        {
+            return new State(task.getStatus(), task.getFinishDate(), null);
+        }
+    }
+
+    public static TaskChange created(Task task)
+    {
+        return new TaskChange(Type.CREATED, task.getId(), task.getVersion(), task.getName(), task.getDesc(), task.getStatus(), task.getFinishDate(), task.getAssignedUsers(), null);
+    }
+
+    public static TaskChange updated(Task task, State previous)
+    {
+        return new TaskChange(Type.UPDATED, task.getId(), task.getVersion(), task.getName(), task.getDesc(), task.getStatus(), task.getFinishDate(), null, previous);
+    }
+
+    public static TaskChange statusChanged(Long taskId, Status status, Long version, State previous)
+    {
+        return new TaskChange(Type.STATUS_CHANGED, taskId, version, null, null, status, null, null, previous);
+    }
+
+    public static TaskChange assigned(Long taskId, List<Long> userIds)
+    {
+        return new TaskChange(Type.ASSIGNED, taskId, null, null, null, null, null, List.copyOf(userIds), null);
+    }
+
+    public static TaskChange unassigned(Long taskId, List<Long> userIds)
+    {
+        return new TaskChange(Type.UNASSIGNED, taskId, null, null, null, null, null, List.copyOf(userIds), null);
+    }
+
+    /**
+     * To be taken before the task is removed, as it reads its assignees.
+     */
+    public static TaskChange deleted(Task task)
+    {
+        return new TaskChange(Type.DELETED, task.getId(), null, null, null, null, null, null,
+            new State(task.getStatus(), task.getFinishDate(), task.getAssignedUsers()));
+    }
+}
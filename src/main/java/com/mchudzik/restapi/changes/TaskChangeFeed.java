@@ -0,0 +1,90 @@
+package com.mchudzik.restapi.changes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * The last {@code tasks.changes.buffer-size} task changes, numbered from 1
+ * in commit order. Readers keep their own position, the id of the last
+ * change they have seen, and read at their own pace; memory stays bounded
+ * as the ring overwrites the oldest change. A reader that falls further
+ * behind than the ring holds is told so by {@link Slice#reset()} and has to
+ * reload the tasks. Changes are taken in after their transaction commits,
+ * so rolled back changes are never seen.
+ */
+@Component
+@Profile("!reactive")
+public class TaskChangeFeed {
+    private final Entry[] ring;
+    private final Set<Runnable> listeners = new CopyOnWriteArraySet<>();
+    private long lastId;
+
+    TaskChangeFeed(@Value("${tasks.changes.buffer-size:4096}") int bufferSize)
+    {
+        this.ring = new Entry[bufferSize];
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onChange(TaskChange change)
+    {
+        synchronized (this) {
+            lastId++;
+            ring[(int) (lastId % ring.length)] = new Entry(lastId, change);
+        }
+        listeners.forEach(Runnable::run);
+    }
+
+    public synchronized long lastId()
+    {
+        return lastId;
+    }
+
+    /**
+     * Up to {@code max} changes following the change {@code after}.
+     */
+    public synchronized Slice read(long after, int max)
+    {
+        if (after > lastId || after < lastId - ring.length) {
+            return new Slice(List.of(), lastId, true);
+        }
+        List<Entry> changes = new ArrayList<>((int) Math.min(max, lastId - after));
+        for (long id = after + 1; id <= lastId && changes.size() < max; id++) {
+            changes.add(ring[(int) (id % ring.length)]);
+        }
+        return new Slice(changes, changes.isEmpty() ? after : changes.get(changes.size() - 1).id(), false);
+    }
+
+    /**
+     * Registers {@code listener} to run, on the committing thread, after
+     * every change. It must return quickly.
+     */
+    public void addListener(Runnable listener)
+    {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener)
+    {
+        listeners.remove(listener);
+    }
+
+    public record Entry(long id, @JsonUnwrapped TaskChange change) {
+    }
+
+    /**
+     * A run of changes and the id to read on from. {@code reset} means the
+     * changes asked for are no longer, or never were, in the feed: the
+     * reader should reload the tasks and continue from {@code lastId}.
+     */
+    public record Slice(List<Entry> changes, long lastId, boolean reset) {
+    }
+}
@@ -0,0 +1,235 @@
+package com.mchudzik.restapi.changes;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.mchudzik.restapi.exceptions.TooManySubscribersException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Server-sent event subscriptions to the {@link TaskChangeFeed}. Each
+ * subscriber is sent the changes after its position, up to
+ * {@code BATCH_SIZE} in one write, by one of {@code tasks.changes.workers}
+ * threads, and only while there is something to send. A subscriber queues
+ * at most one send at a time, and no more than
+ * {@code tasks.changes.max-subscribers} may subscribe, so neither the
+ * threads nor the queue grow with slow clients. A client that falls behind
+ * by more than the feed holds gets a {@code reset} event and is
+ * disconnected; one whose write has been blocked for longer than
+ * {@code tasks.changes.send-timeout} is disconnected too, and its worker
+ * is freed once the write fails. Idle streams get a comment every
+ * {@code tasks.changes.heartbeat-interval}, which keeps proxies from
+ * closing them and finds clients that went away.
+ */
+@Component
+@Profile("!reactive")
+public class TaskChangeStream {
+    public static final String RESET_EVENT = "reset";
+
+    private static final int BATCH_SIZE = 100;
+
+    private final AtomicInteger workerCount = new AtomicInteger();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService workers;
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-changes-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final TaskChangeFeed feed;
+    private final long timeout;
+    private final int maxSubscribers;
+    private final long sendTimeout;
+    private final Counter resetCounter;
+    private final Counter stallCounter;
+
+    TaskChangeStream(TaskChangeFeed feed, MeterRegistry meterRegistry,
+        @Value("${tasks.changes.timeout:30m}") Duration timeout,
+        @Value("${tasks.changes.heartbeat-interval:15s}") Duration heartbeatInterval,
+        @Value("${tasks.changes.workers:8}") int workerThreads,
+        @Value("${tasks.changes.max-subscribers:1000}") int maxSubscribers,
+        @Value("${tasks.changes.send-timeout:30s}") Duration sendTimeout)
+    {
+        this.feed = feed;
+        this.timeout = timeout.toMillis();
+        this.maxSubscribers = maxSubscribers;
+        this.sendTimeout = sendTimeout.toMillis();
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "task-changes-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("tasks.changes.subscribers", subscriptions, Set::size)
+        .description("Open task change streams")
+        .register(meterRegistry);
+        this.resetCounter = Counter.builder("tasks.changes.resets")
+        .description("Task change streams closed because the client fell behind")
+        .register(meterRegistry);
+        this.stallCounter = Counter.builder("tasks.changes.stalls")
+        .description("Task change streams closed because a write to the client blocked for too long")
+        .register(meterRegistry);
+        heartbeats.scheduleWithFixedDelay(() -> subscriptions.forEach(Subscription::heartbeat),
+            heartbeatInterval.toMillis(), heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a stream of the changes after {@code after}, or of the changes
+     * from now on if it is {@code null}.
+     *
+     * @throws TooManySubscribersException if {@code tasks.changes.max-subscribers} streams are open
+     */
+    public SseEmitter subscribe(Long after)
+    {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new TooManySubscribersException(maxSubscribers);
+        }
+        Subscription subscription = new Subscription(new SseEmitter(timeout), after == null ? feed.lastId() : after);
+        subscription.emitter.onCompletion(subscription::close);
+        subscription.emitter.onTimeout(subscription::close);
+        subscription.emitter.onError(e -> subscription.close());
+        subscriptions.add(subscription);
+        feed.addListener(subscription);
+        subscription.run();
+        return subscription.emitter;
+    }
+
+    public int subscriberCount()
+    {
+        return subscriptions.size();
+    }
+
+    @PreDestroy
+    void shutdown()
+    {
+        heartbeats.shutdownNow();
+        subscriptions.forEach(subscription -> {
+            subscription.close();
+            subscription.emitter.complete();
+        });
+        workers.shutdownNow();
+    }
+
+    private class Subscription implements Runnable {
+        private final SseEmitter emitter;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long position;
+        private volatile boolean idle;
+        private volatile long sendStarted;
+
+        Subscription(SseEmitter emitter, long position)
+        {
+            this.emitter = emitter;
+            this.position = position;
+        }
+
+        /**
+         * Called by the feed after every change; starts a worker unless one
+         * is already sending.
+         */
+        @Override
+        public void run()
+        {
+            if (sending.compareAndSet(false, true)) {
+                workers.execute(this::send);
+            }
+        }
+
+        void heartbeat()
+        {
+            if (sending.get() && sendStarted != 0 && System.currentTimeMillis() - sendStarted > sendTimeout) {
+                stallCounter.increment();
+                close();
+                emitter.complete();
+                return;
+            }
+            if (idle && sending.compareAndSet(false, true)) {
+                workers.execute(() -> {
+                    sendStarted = System.currentTimeMillis();
+                    try {
+                        emitter.send(SseEmitter.event().comment(""));
+                    } catch (IOException | IllegalStateException e) {
+                        close();
+                    } finally {
+                        sendStarted = 0;
+                        sending.set(false);
+                    }
+                    resume();
+                });
+            }
+            idle = true;
+        }
+
+        private void send()
+        {
+            try {
+                TaskChangeFeed.Slice slice;
+                do {
+                    sendStarted = System.currentTimeMillis();
+                    slice = feed.read(position, BATCH_SIZE);
+                    if (slice.reset()) {
+                        resetCounter.increment();
+                        emitter.send(SseEmitter.event().name(RESET_EVENT).id(Long.toString(slice.lastId())).data(slice.lastId()));
+                        close();
+                        emitter.complete();
+                        return;
+                    }
+                    if (!slice.changes().isEmpty()) {
+                        Set<ResponseBodyEmitter.DataWithMediaType> events = new LinkedHashSet<>();
+                        slice.changes().forEach(entry -> events.addAll(SseEmitter.event().id(Long.toString(entry.id())).data(entry.change(), MediaType.APPLICATION_JSON).build()));
+                        emitter.send(events);
+                        position = slice.lastId();
+                        idle = false;
+                    }
+                } while (!slice.changes().isEmpty());
+            } catch (IOException | IllegalStateException e) {
+                close();
+                return;
+            } finally {
+                sendStarted = 0;
+                sending.set(false);
+            }
+            resume();
+        }
+
+        /**
+         * Picks up changes that came in while the previous worker was
+         * finishing and so did not start a new one.
+         */
+        private void resume()
+        {
+            if (subscriptions.contains(this) && feed.lastId() > position) {
+                run();
+            }
+        }
+
+        void close()
+        {
+            feed.removeListener(this);
+            if (subscriptions.remove(this)) {
+                subscriberCount.decrementAndGet();
+            }
+        }
+    }
+}
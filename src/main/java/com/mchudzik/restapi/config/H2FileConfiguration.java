@@ -0,0 +1,51 @@
+package com.mchudzik.restapi.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import com.mchudzik.restapi.snapshot.H2Snapshots;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * File-backed H2 for the {@code h2-file} profile. The data source is declared
+ * here rather than auto-configured so the newest snapshot can be restored
+ * before the pool opens the database file.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("h2-file")
+public class H2FileConfiguration {
+
+    @Bean(destroyMethod = "close")
+    H2Snapshots h2Snapshots(@Value("${h2-file.directory}") Path directory, @Value("${h2-file.database}") String database,
+        @Value("${h2-file.snapshot.format:backup}") H2Snapshots.Format format, @Value("${h2-file.snapshot.retain:3}") int retain)
+    {
+        return new H2Snapshots(directory, database, format, retain);
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource dataSource(DataSourceProperties properties, H2Snapshots snapshots,
+        @Value("${h2-file.restore-on-startup:true}") boolean restoreOnStartup)
+    {
+        if (restoreOnStartup) {
+            snapshots.restoreIfMissing(properties.determineUrl(), properties.determineUsername(), properties.determinePassword());
+        }
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    ApplicationRunner h2SnapshotSchedule(H2Snapshots snapshots, DataSource dataSource, @Value("${h2-file.snapshot.interval:15m}") Duration interval)
+    {
+        return args -> snapshots.schedule(dataSource, interval);
+    }
+}
@@ -0,0 +1,21 @@
+package com.mchudzik.restapi.config;
+
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+import com.mchudzik.restapi.repositories.TaskRepository;
+
+/**
+ * JPA repositories for the servlet stack. Declared explicitly so the scan
+ * skips the R2DBC repositories living in the same package, which JPA rejects.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@EnableJpaRepositories(basePackageClasses = TaskRepository.class,
+    excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ReactiveCrudRepository.class))
+public class JpaConfiguration {
+}
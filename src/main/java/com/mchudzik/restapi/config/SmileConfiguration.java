@@ -0,0 +1,41 @@
+package com.mchudzik.restapi.config;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.hateoas.mediatype.hal.HalMediaTypeConfiguration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Smile ({@code application/x-jackson-smile}), binary JSON, for internal
+ * consumers. The default Smile converter knows nothing about HAL and renders
+ * models with a plain {@code links} array; this one uses the application's
+ * JSON settings and the HAL mapping, so both formats carry the same document.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+public class SmileConfiguration implements WebMvcConfigurer {
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    private final ObjectMapper objectMapper;
+    private final HalMediaTypeConfiguration halConfiguration;
+
+    SmileConfiguration(ObjectMapper objectMapper, HalMediaTypeConfiguration halConfiguration)
+    {
+        this.objectMapper = objectMapper;
+        this.halConfiguration = halConfiguration;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters)
+    {
+        converters.removeIf(MappingJackson2SmileHttpMessageConverter.class::isInstance);
+        converters.add(new MappingJackson2SmileHttpMessageConverter(halConfiguration.configureObjectMapper(objectMapper.copyWith(new SmileFactory()))));
+    }
+}
@@ -0,0 +1,40 @@
+package com.mchudzik.restapi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+import com.mchudzik.restapi.throttle.ThrottleFilter;
+import com.mchudzik.restapi.throttle.ThrottleProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Rate limiting and load shedding, see {@link ThrottleFilter}. The filter
+ * runs right after the one recording {@code http.server.requests}, so
+ * rejected requests still show up there, and before everything else.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnProperty(name = "throttle.enabled", havingValue = "true")
+@EnableConfigurationProperties(ThrottleProperties.class)
+public class ThrottleConfiguration {
+
+    @Bean
+    ThrottleFilter throttleFilter(ThrottleProperties properties, MeterRegistry meterRegistry)
+    {
+        return new ThrottleFilter(properties, meterRegistry);
+    }
+
+    @Bean
+    FilterRegistrationBean<ThrottleFilter> throttleFilterRegistration(ThrottleFilter throttleFilter)
+    {
+        FilterRegistrationBean<ThrottleFilter> registration = new FilterRegistrationBean<>(throttleFilter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
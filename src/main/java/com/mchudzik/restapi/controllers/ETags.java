@@ -0,0 +1,47 @@
+package com.mchudzik.restapi.controllers;
+
+import com.mchudzik.restapi.assemblers.Views;
+import com.mchudzik.restapi.exceptions.PreconditionFailedException;
+import com.mchudzik.restapi.models.VersionStamp;
+
+/**
+ * Entity tags derived from {@code @Version} columns: strong for single
+ * entities, weak for collections. Collections are served in several
+ * equivalent representations (JSON or Smile, compressed or not), and Tomcat
+ * only compresses responses without a strong tag. The full and compact views
+ * differ in content, so a collection tag names the view it was made for.
+ */
+final class ETags {
+
+    private ETags() {}
+
+    static String of(Long version)
+    {
+        return "\"" + version + "\"";
+    }
+
+    static String of(VersionStamp stamp)
+    {
+        String view = Views.compactRequested() ? "-" + Views.COMPACT : "";
+        return "W/\"" + stamp.getCount() + "-" + stamp.getMaxId() + "-" + stamp.getVersionSum() + view + "\"";
+    }
+
+    /**
+     * Throws unless {@code ifMatch} is absent, {@code *}, or lists the current
+     * tag. Weak tags never match, as required for If-Match.
+     */
+    static void checkIfMatch(String ifMatch, String resource, Long id, Long version)
+    {
+        if (ifMatch == null) {
+            return;
+        }
+        String current = of(version);
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(current)) {
+                return;
+            }
+        }
+        throw new PreconditionFailedException(resource, id);
+    }
+}
@@ -0,0 +1,74 @@
+package com.mchudzik.restapi.controllers;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.mchudzik.restapi.changes.TaskChangeFeed;
+import com.mchudzik.restapi.changes.TaskChangeStream;
+
+/**
+ * Changes to tasks, so clients can keep a copy current without reloading
+ * it. {@code text/event-stream} clients get a server-sent event per change,
+ * with the change number as the event id, and resume with
+ * {@code Last-Event-ID}. Others long-poll with {@code ?after=} the last
+ * change number they have, and get the changes after it as soon as there
+ * are any. Without a position a stream starts at the current change and a
+ * poll returns it at once, so clients open the stream or take the position
+ * before loading the tasks.
+ */
+@RestController
+@RequestMapping("/tasks/changes")
+@Profile("!reactive")
+public class TaskChangeController {
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+    private static final int MAX_POLL_SIZE = 1000;
+
+    private final TaskChangeFeed feed;
+    private final TaskChangeStream stream;
+    private final long pollTimeout;
+
+    TaskChangeController(TaskChangeFeed feed, TaskChangeStream stream, @Value("${tasks.changes.poll-timeout:25s}") Duration pollTimeout)
+    {
+        this.feed = feed;
+        this.stream = stream;
+        this.pollTimeout = pollTimeout.toMillis();
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required=false) Long after, @RequestHeader(value=LAST_EVENT_ID, required=false) Long lastEventId)
+    {
+        return stream.subscribe(lastEventId != null ? lastEventId : after);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<TaskChangeFeed.Slice> pollChanges(@RequestParam(required=false) Long after, @RequestHeader(value=LAST_EVENT_ID, required=false) Long lastEventId)
+    {
+        Long position = lastEventId != null ? lastEventId : after;
+        DeferredResult<TaskChangeFeed.Slice> result;
+        if (position == null) {
+            result = new DeferredResult<>();
+            result.setResult(new TaskChangeFeed.Slice(List.of(), feed.lastId(), false));
+            return result;
+        }
+
+        result = new DeferredResult<>(pollTimeout, new TaskChangeFeed.Slice(List.of(), position, false));
+        Runnable listener = () -> {
+            TaskChangeFeed.Slice slice = feed.read(position, MAX_POLL_SIZE);
+            if (slice.reset() || !slice.changes().isEmpty()) {
+                result.setResult(slice);
+            }
+        };
+        feed.addListener(listener);
+        result.onCompletion(() -> feed.removeListener(listener));
+        // Changes made before the listener was added would not wake it.
+        listener.run();
+        return result;
+    }
+}
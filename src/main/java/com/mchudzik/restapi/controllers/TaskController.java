@@ -1,91 +1,268 @@
 package com.mchudzik.restapi.controllers;
 
+import java.io.IOException;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-
+import java.util.stream.Stream;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.context.request.WebRequest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.mchudzik.restapi.changes.TaskChange;
+import com.mchudzik.restapi.models.AssignmentBatch;
+import com.mchudzik.restapi.models.AssignmentBatchResult;
+import com.mchudzik.restapi.models.BulkItemResult;
+import com.mchudzik.restapi.models.DeltaModel;
 import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.models.TaskAssignee;
+import com.mchudzik.restapi.models.TaskAssignment;
+import com.mchudzik.restapi.models.TaskFields;
+import com.mchudzik.restapi.models.Tombstone;
 import com.mchudzik.restapi.repositories.TaskRepository;
+import com.mchudzik.restapi.repositories.TaskSpecifications;
 import com.mchudzik.restapi.repositories.UserRepository;
 import com.mchudzik.restapi.assemblers.TaskModelAssembler;
 import com.mchudzik.restapi.enums.Status;
 import com.mchudzik.restapi.exceptions.StatusNotFoundException;
 import com.mchudzik.restapi.exceptions.TaskNotFoundException;
 import com.mchudzik.restapi.exceptions.UserNotFoundException;
+import com.mchudzik.restapi.search.TaskSearchIndex;
+import com.mchudzik.restapi.sync.OpenWrites;
+import com.mchudzik.restapi.sync.DeltaSync;
+import com.mchudzik.restapi.writebehind.StatusUpdateQueue;
+
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/tasks")
+@Profile("!reactive")
 public class TaskController {
     private final TaskRepository repo;
     private final TaskModelAssembler assembler;
     private final UserRepository userRepo;
-
-    TaskController(TaskRepository repo, TaskModelAssembler assembler, UserRepository userRepo)
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TaskSearchIndex searchIndex;
+    private final Optional<StatusUpdateQueue> statusUpdates;
+    private final ApplicationEventPublisher events;
+    private final DeltaSync sync;
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int BULK_BATCH_SIZE = 50;
+    private static final int BULK_LOOKUP_SIZE = 1000;
+    static final String SYNC_REL = "sync";
+
+    TaskController(TaskRepository repo, TaskModelAssembler assembler, UserRepository userRepo, ObjectMapper objectMapper, EntityManager entityManager, TaskSearchIndex searchIndex, Optional<StatusUpdateQueue> statusUpdates,
+        ApplicationEventPublisher events, DeltaSync sync)
     {
         this.repo = repo;
         this.userRepo = userRepo;
         this.assembler = assembler;
-        
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.searchIndex = searchIndex;
+        this.statusUpdates = statusUpdates;
+        this.events = events;
+        this.sync = sync;
     }
 
     @GetMapping
-    public CollectionModel<EntityModel<Task>> listTasks()
+    public CollectionModel<EntityModel<?>> listTasks(@RequestParam(required=false) Long after, @RequestParam(required=false) Integer limit,
+        @RequestParam(required=false) List<String> fields, @RequestParam(required=false) Instant modifiedSince, WebRequest request)
     {
-        List<EntityModel<Task>> tasks = repo.findAll().stream()
-        .map(assembler::toModel)
-        .collect(Collectors.toList());
+        if (modifiedSince != null) {
+            Instant syncedTo = sync.nextSyncPoint();
+            List<Long> deleted = sync.deletedSince(Tombstone.Type.TASK, modifiedSince);
+            Specification<Task> spec = TaskSpecifications.modifiedSince(modifiedSince);
+            List<EntityModel<?>> tasks = items(fields, spec, () -> repo.findAll(spec, Sort.by("id")));
+
+            return assembler.applyView(new DeltaModel<>(tasks, deleted, syncedTo,
+                linkTo(methodOn(TaskController.class).listTasks(null, null, fields, modifiedSince, null)).withSelfRel().expand(),
+                linkTo(methodOn(TaskController.class).listTasks(null, null, fields, syncedTo, null)).withRel(SYNC_REL).expand()));
+        }
+        if (after == null && limit == null) {
+            if (request.checkNotModified(ETags.of(repo.findVersionStamp()))) {
+                return null;
+            }
+            List<EntityModel<?>> tasks = items(fields, null, repo::findAll);
 
-        return CollectionModel.of(tasks, linkTo(methodOn(TaskController.class).listTasks()).withSelfRel());
+            return assembler.applyView(CollectionModel.of(tasks, linkTo(methodOn(TaskController.class).listTasks(null, null, fields, null, null)).withSelfRel().expand()));
+        }
+
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Long> ids = repo.findIdsByIdGreaterThan(after == null ? Long.MIN_VALUE : after, PageRequest.of(0, pageSize + 1, Sort.by("id")));
+        boolean hasNext = ids.size() > pageSize;
+        if (hasNext) {
+            ids = ids.subList(0, pageSize);
+        }
+        List<Long> pageIds = ids;
+        List<EntityModel<?>> tasks = pageIds.isEmpty() ? new ArrayList<>() : items(fields, TaskSpecifications.idIn(pageIds), () -> repo.findAllByIdIn(pageIds, Sort.by("id")));
+
+        CollectionModel<EntityModel<?>> model = CollectionModel.of(tasks, linkTo(methodOn(TaskController.class).listTasks(after, pageSize, fields, null, null)).withSelfRel().expand());
+        if (hasNext) {
+            Long lastId = ids.get(ids.size() - 1);
+            model.add(linkTo(methodOn(TaskController.class).listTasks(lastId, pageSize, fields, null, null)).withRel(IanaLinkRelations.NEXT).expand());
+        }
+        return assembler.applyView(model);
+    }
 
+    @GetMapping("/export")
+    @Transactional(readOnly = true)
+    public void exportTasks(HttpServletResponse response) throws IOException
+    {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+
+        // The query hint covers only its execution, the rows are read while streaming
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode cacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.IGNORE);
+        try (Stream<Task> tasks = repo.streamAllByOrderById();
+            SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(response.getOutputStream())) {
+            for (Task task : (Iterable<Task>) tasks::iterator) {
+                writer.write(task);
+                entityManager.detach(task);
+            }
+            writer.flush();
+        } finally {
+            session.setCacheMode(cacheMode);
+        }
     }
 
     @GetMapping("/{id}")
-    public EntityModel<Task> findTaskByID(@PathVariable Long id)
+    public EntityModel<Task> findTaskByID(@PathVariable Long id, WebRequest request)
     {
-        Task task = repo.findById(id).orElseThrow(() -> new TaskNotFoundException(id));
+        Task task = repo.findWithAssigneesById(id).orElseThrow(() -> new TaskNotFoundException(id));
+        if (request.checkNotModified(ETags.of(task.getVersion()))) {
+            return null;
+        }
         
         return assembler.toModel(task);
 
     }
 
     @GetMapping("/byUser")
-    public CollectionModel<EntityModel<Task>> findTaskByUserID(@RequestParam Long userId)
+    public CollectionModel<EntityModel<?>> findTaskByUserID(@RequestParam Long userId, @RequestParam(required=false) List<String> fields)
     {
-        List<EntityModel<Task>> tasks = repo.findAllByAssignedUsers(userId).stream()
-        .map(assembler::toModel)
-        .collect(Collectors.toList());
+        List<EntityModel<?>> tasks = items(fields, TaskSpecifications.assignedTo(userId), () -> repo.findAllByAssignedUser(userId));
 
-        return CollectionModel.of(tasks, linkTo(methodOn(TaskController.class).findTaskByUserID(userId)).withSelfRel());
+        return assembler.applyView(CollectionModel.of(tasks, linkTo(methodOn(TaskController.class).findTaskByUserID(userId, fields)).withSelfRel().expand()));
     }
 
     @GetMapping("/byName")
-    public CollectionModel<EntityModel<Task>> findTaskByString(@RequestParam String name)
+    public CollectionModel<EntityModel<?>> findTaskByString(@RequestParam String name, @RequestParam(required=false) Integer page, @RequestParam(required=false) Integer size,
+        @RequestParam(required=false) List<String> fields)
     {
-        List<EntityModel<Task>> tasks = repo.findAllByNameContainingOrDescContainingAllIgnoreCase(name,name).stream()
-        .map(assembler::toModel)
+        List<Long> ids = searchIndex.search(name);
+
+        if (page == null && size == null) {
+            List<EntityModel<?>> tasks = itemsInOrder(ids, fields);
+
+            return assembler.applyView(CollectionModel.of(tasks, linkTo(methodOn(TaskController.class).findTaskByString(name, null, null, fields)).withSelfRel().expand()));
+        }
+
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = page == null ? 0 : Math.max(0, page);
+        int from = (int) Math.min((long) pageNumber * pageSize, ids.size());
+        int to = Math.min(from + pageSize, ids.size());
+
+        List<EntityModel<?>> tasks = itemsInOrder(ids.subList(from, to), fields);
+
+        PagedModel<EntityModel<?>> model = PagedModel.of(tasks, new PagedModel.PageMetadata(pageSize, pageNumber, ids.size()),
+            linkTo(methodOn(TaskController.class).findTaskByString(name, pageNumber, pageSize, fields)).withSelfRel().expand());
+        if (to < ids.size()) {
+            model.add(linkTo(methodOn(TaskController.class).findTaskByString(name, pageNumber + 1, pageSize, fields)).withRel(IanaLinkRelations.NEXT).expand());
+        }
+        return assembler.applyView(model);
+    }
+
+    /**
+     * Collection items for the tasks matching {@code spec}: just the
+     * requested fields, read by {@link TaskRepository#findFields}, when
+     * {@code fields} is given, otherwise the full tasks from {@code tasks}.
+     */
+    private List<EntityModel<?>> items(List<String> fields, Specification<Task> spec, Supplier<List<Task>> tasks)
+    {
+        if (fields != null) {
+            return repo.findFields(spec, fields, Pageable.unpaged()).stream()
+            .map(assembler::toCollectionItem)
+            .collect(Collectors.toList());
+        }
+        return tasks.get().stream()
+        .map(assembler::toCollectionItem)
         .collect(Collectors.toList());
+    }
 
-        return CollectionModel.of(tasks, linkTo(methodOn(TaskController.class).findTaskByString(name)).withSelfRel());
+    private List<EntityModel<?>> itemsInOrder(List<Long> ids, List<String> fields)
+    {
+        if (fields == null) {
+            return loadInOrder(ids).stream()
+            .map(assembler::toCollectionItem)
+            .collect(Collectors.toList());
+        }
+        Map<Long, TaskFields> byId = ids.isEmpty() ? Map.of() : repo.findFields(TaskSpecifications.idIn(ids), fields, Pageable.unpaged()).stream()
+        .collect(Collectors.toMap(TaskFields::getId, Function.identity()));
+
+        return ids.stream()
+        .map(byId::get)
+        .filter(Objects::nonNull)
+        .map(assembler::toCollectionItem)
+        .collect(Collectors.toList());
+    }
+
+    private List<Task> loadInOrder(List<Long> ids)
+    {
+        Map<Long, Task> byId = findAllByIdAsMap(ids);
+
+        return ids.stream()
+        .map(byId::get)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
     }
 
     @GetMapping("/byStatus")
-    public CollectionModel<EntityModel<Task>> findTaskByStatus(@RequestParam String status)
+    public CollectionModel<EntityModel<?>> findTaskByStatus(@RequestParam String status, @RequestParam(required=false) List<String> fields)
     {
         try{
             Status statusEnum = Status.valueOf(status);
-            List<EntityModel<Task>> tasks = repo.findAllByStatus(statusEnum).stream()
-                .map(assembler::toModel)
-                .collect(Collectors.toList());
+            List<EntityModel<?>> tasks = items(fields, TaskSpecifications.hasStatus(statusEnum), () -> repo.findAllByStatus(statusEnum));
 
-            return CollectionModel.of(tasks, linkTo(methodOn(TaskController.class).findTaskByStatus(status)).withSelfRel());
+            return assembler.applyView(CollectionModel.of(tasks, linkTo(methodOn(TaskController.class).findTaskByStatus(status, fields)).withSelfRel().expand()));
         }
         catch(IllegalArgumentException e)
         {
@@ -95,79 +272,255 @@ public class TaskController {
 
 
     @GetMapping("/byDate")
-    public CollectionModel<EntityModel<Task>> findTaskBetweenDates(@RequestParam LocalDate endDate, @RequestParam(required=false) LocalDate startDate)
+    public CollectionModel<EntityModel<?>> findTaskBetweenDates(@RequestParam LocalDate endDate, @RequestParam(required=false) LocalDate startDate,
+        @RequestParam(required=false) List<String> fields)
     {
         if (startDate == null) {
-            List<EntityModel<Task>> tasks = repo.findAllByFinishDateLessThanEqual(endDate).stream()
-                    .map(assembler::toModel)
-                    .collect(Collectors.toList());
+            List<EntityModel<?>> tasks = items(fields, TaskSpecifications.finishesOnOrBefore(endDate), () -> repo.findAllByFinishDateLessThanEqual(endDate));
 
-            return CollectionModel.of(tasks,
-                    linkTo(methodOn(TaskController.class).findTaskBetweenDates(endDate, null)).withSelfRel());
+            return assembler.applyView(CollectionModel.of(tasks,
+                    linkTo(methodOn(TaskController.class).findTaskBetweenDates(endDate, null, fields)).withSelfRel().expand()));
         } else {
 
-            List<EntityModel<Task>> tasks = repo.findAllByFinishDateBetween(startDate, endDate).stream()
-                    .map(assembler::toModel)
-                    .collect(Collectors.toList());
+            List<EntityModel<?>> tasks = items(fields, TaskSpecifications.filter(null, startDate, endDate, null), () -> repo.findAllByFinishDateBetween(startDate, endDate));
 
-            return CollectionModel.of(tasks,
-                    linkTo(methodOn(TaskController.class).findTaskBetweenDates(startDate, endDate)).withSelfRel());
+            return assembler.applyView(CollectionModel.of(tasks,
+                    linkTo(methodOn(TaskController.class).findTaskBetweenDates(startDate, endDate, fields)).withSelfRel().expand()));
         }
     }
 
+    /**
+     * Any combination of status, finish date range and assignee in a single
+     * query; omitted parameters do not constrain the result.
+     */
+    @GetMapping("/filter")
+    public CollectionModel<EntityModel<?>> filterTasks(@RequestParam(required=false) String status, @RequestParam(required=false) LocalDate startDate,
+        @RequestParam(required=false) LocalDate endDate, @RequestParam(required=false) Long userId, @RequestParam(required=false) List<String> fields)
+    {
+        Status statusEnum;
+        try{
+            statusEnum = status == null ? null : Status.valueOf(status);
+        }
+        catch(IllegalArgumentException e)
+        {
+            throw new StatusNotFoundException(status);
+        }
+
+        Specification<Task> spec = TaskSpecifications.filter(statusEnum, startDate, endDate, userId);
+        List<EntityModel<?>> tasks = items(fields, spec, () -> repo.findAll(spec, Sort.by("id")));
+
+        return assembler.applyView(CollectionModel.of(tasks, linkTo(methodOn(TaskController.class).filterTasks(status, startDate, endDate, userId, fields)).withSelfRel().expand()));
+    }
+
     @PostMapping
     public ResponseEntity<?> createTask(@RequestBody Task task)
     {
-        EntityModel<Task> entityModel = assembler.toModel(repo.save(task));
+        Task created = repo.save(task);
+        events.publishEvent(TaskChange.created(created));
+        EntityModel<Task> entityModel = assembler.toModel(created);
 
         return ResponseEntity.created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri()).body(entityModel);
     }
 
+    @PostMapping("/bulk")
+    @Transactional
+    public List<BulkItemResult> createTasks(@RequestBody List<Task> newTasks)
+    {
+        List<BulkItemResult> results = new ArrayList<>(newTasks.size());
+        for (int i = 0; i < newTasks.size(); i++) {
+            Task task = newTasks.get(i);
+            task.setID(null);
+            entityManager.persist(task);
+            events.publishEvent(TaskChange.created(task));
+            results.add(new BulkItemResult(i, task.getId(), HttpStatus.CREATED.value()));
+            flushBatch(i);
+        }
+        return results;
+    }
+
+    @PatchMapping("/bulk")
+    @Transactional
+    public List<BulkItemResult> editTasks(@RequestBody List<Task> newTasks)
+    {
+        List<BulkItemResult> results = new ArrayList<>(newTasks.size());
+        for (int from = 0; from < newTasks.size(); from += BULK_LOOKUP_SIZE) {
+            int to = Math.min(from + BULK_LOOKUP_SIZE, newTasks.size());
+            Map<Long, Task> existing = findAllByIdAsMap(newTasks.subList(from, to).stream().map(Task::getId).toList());
+            Map<Long, TaskChange.State> edited = new LinkedHashMap<>();
+
+            for (int i = from; i < to; i++) {
+                Task newTask = newTasks.get(i);
+                Task task = existing.get(newTask.getId());
+                if (task == null) {
+                    results.add(new BulkItemResult(i, newTask.getId(), HttpStatus.NOT_FOUND.value()));
+                    continue;
+                }
+                edited.putIfAbsent(task.getId(), TaskChange.State.of(task));
+                if (newTask.getName() != null) {
+                    task.setName(newTask.getName());
+                }
+                if (newTask.getDesc() != null) {
+                    task.setDesc(newTask.getDesc());
+                }
+                if (newTask.getFinishDate() != null) {
+                    task.setFinishDate(newTask.getFinishDate());
+                }
+                if (newTask.getStatus() != null) {
+                    discardPendingStatus(task.getId());
+                    task.setStatus(newTask.getStatus());
+                }
+                results.add(new BulkItemResult(i, task.getId(), HttpStatus.OK.value()));
+            }
+            entityManager.flush();
+            edited.forEach((id, previous) -> events.publishEvent(TaskChange.updated(existing.get(id), previous)));
+            entityManager.clear();
+        }
+        return results;
+    }
+
+    @DeleteMapping("/bulk")
+    @Transactional
+    public List<BulkItemResult> deleteTasks(@RequestBody List<Long> ids)
+    {
+        List<BulkItemResult> results = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += BULK_LOOKUP_SIZE) {
+            int to = Math.min(from + BULK_LOOKUP_SIZE, ids.size());
+            Map<Long, Task> existing = findAllByIdAsMap(ids.subList(from, to));
+
+            for (int i = from; i < to; i++) {
+                Task task = existing.remove(ids.get(i));
+                if (task == null) {
+                    results.add(new BulkItemResult(i, ids.get(i), HttpStatus.NOT_FOUND.value()));
+                    continue;
+                }
+                discardPendingStatus(task.getId());
+                TaskChange change = TaskChange.deleted(task);
+                entityManager.remove(task);
+                sync.recordDeletion(Tombstone.Type.TASK, task.getId());
+                events.publishEvent(change);
+                results.add(new BulkItemResult(i, ids.get(i), HttpStatus.NO_CONTENT.value()));
+            }
+            entityManager.flush();
+            entityManager.clear();
+        }
+        return results;
+    }
+
+    private Map<Long, Task> findAllByIdAsMap(List<Long> ids)
+    {
+        return repo.findAllById(ids.stream().filter(Objects::nonNull).collect(Collectors.toSet())).stream()
+        .collect(Collectors.toMap(Task::getId, Function.identity()));
+    }
+
+    /**
+     * Flushes and detaches every {@code BULK_BATCH_SIZE} entities so the JDBC
+     * batches go out in full and the persistence context stays small.
+     */
+    private void flushBatch(int index)
+    {
+        if ((index + 1) % BULK_BATCH_SIZE == 0) {
+            entityManager.flush();
+            entityManager.clear();
+        }
+    }
+
+    /**
+     * Keeps a written-behind status change from overwriting the one about to
+     * be saved, or from touching a task about to be deleted.
+     */
+    private void discardPendingStatus(Long id)
+    {
+        statusUpdates.ifPresent(queue -> queue.discard(id));
+    }
+
+    /**
+     * With write-behind on, locks the task's row before it is read, as a flush
+     * does before it writes. A flush then either commits before the read or
+     * waits for the save, and cannot bump the version in between.
+     */
+    private void lockAgainstFlush(Long id)
+    {
+        if (statusUpdates.isPresent()) {
+            repo.lockVersions(List.of(id));
+        }
+    }
+
     @DeleteMapping("/{id}")
+    @Transactional
     public ResponseEntity<?> deleteTask(@PathVariable Long id) 
     {
-        repo.deleteById(id);
+        repo.findById(id).ifPresent(task -> {
+            discardPendingStatus(id);
+            TaskChange change = TaskChange.deleted(task);
+            repo.delete(task);
+            sync.recordDeletion(Tombstone.Type.TASK, id);
+            events.publishEvent(change);
+        });
         return ResponseEntity.noContent().build();
     }
     
     @PutMapping("/{id}")
-    public ResponseEntity<?> editTask(@RequestBody Task newTask, @PathVariable Long id) 
+    @Transactional
+    public ResponseEntity<?> editTask(@RequestBody Task newTask, @PathVariable Long id, @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch) 
     {
-    Task editedTask = repo.findById(id).map(task -> {
-        task.setName(newTask.getName());
-        task.setDesc(newTask.getDesc());
-        task.setFinishDate(newTask.getFinishDate());
-        task.setStatus(newTask.getStatus());
-        return repo.save(task);
-      })
-      .orElseThrow(() -> new TaskNotFoundException(id));
+    lockAgainstFlush(id);
+    Task task = repo.findWithAssigneesById(id).orElseThrow(() -> new TaskNotFoundException(id));
+    ETags.checkIfMatch(ifMatch, "Task", id, task.getVersion());
+    TaskChange.State previous = TaskChange.State.of(task);
+    discardPendingStatus(id);
+    task.setName(newTask.getName());
+    task.setDesc(newTask.getDesc());
+    task.setFinishDate(newTask.getFinishDate());
+    task.setStatus(newTask.getStatus());
+    Task editedTask = repo.saveAndFlush(task);
+      events.publishEvent(TaskChange.updated(editedTask, previous));
 
       EntityModel<Task> entityModel = assembler.toModel(editedTask);
 
-      return ResponseEntity.created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri()).body(entityModel);
+      return ResponseEntity.created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri()).eTag(ETags.of(editedTask.getVersion())).body(entityModel);
 
     }
 
     @PutMapping("status/{id}")
-    public ResponseEntity<?> editStatus(@RequestBody Status newStatus, @PathVariable Long id)
+    @Transactional
+    public ResponseEntity<?> editStatus(@RequestBody Status newStatus, @PathVariable Long id, @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch)
     {
-        Task editedTask = repo.findById(id).map(task -> {
-            task.setStatus(newStatus);
-            return repo.save(task);
-        })
-        .orElseThrow(() -> new TaskNotFoundException(id));
+        if (statusUpdates.isPresent() && ifMatch == null) {
+            if (!repo.existsById(id)) {
+                throw new TaskNotFoundException(id);
+            }
+            statusUpdates.get().submit(id, newStatus);
+            return ResponseEntity.accepted().location(linkTo(methodOn(TaskController.class).findTaskByID(id, null)).toUri()).build();
+        }
+        lockAgainstFlush(id);
+        Task task = repo.findWithAssigneesById(id).orElseThrow(() -> new TaskNotFoundException(id));
+        ETags.checkIfMatch(ifMatch, "Task", id, task.getVersion());
+        TaskChange.State previous = TaskChange.State.of(task);
+        discardPendingStatus(id);
+        task.setStatus(newStatus);
+        Task editedTask = repo.saveAndFlush(task);
+        events.publishEvent(TaskChange.statusChanged(id, editedTask.getStatus(), editedTask.getVersion(), previous));
 
         EntityModel<Task> entityModel = assembler.toModel(editedTask);
 
-      return ResponseEntity.created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri()).body(entityModel);
+      return ResponseEntity.created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri()).eTag(ETags.of(editedTask.getVersion())).body(entityModel);
     }
 
     @PutMapping()
+    @Transactional
     public ResponseEntity<?> assignUser(@RequestParam Long taskId, @RequestParam Long userId)
     {
-        Task out = repo.findById(taskId).orElseThrow(() -> new TaskNotFoundException(taskId));
-        userRepo.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
-        out.addUser(userId);
+        Task out = repo.findWithAssigneesById(taskId).orElseThrow(() -> new TaskNotFoundException(taskId));
+        if (!userRepo.existsById(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+        if (entityManager.find(TaskAssignee.class, new TaskAssignee.Key(taskId, userId)) == null) {
+            TaskAssignee assignee = new TaskAssignee(out, userId);
+            entityManager.persist(assignee);
+            out.attach(assignee);
+            out.markModified();
+            events.publishEvent(TaskChange.assigned(taskId, List.of(userId)));
+        }
        
         EntityModel<Task> entityModel = assembler.toModel(out);
 
@@ -175,10 +528,109 @@ public class TaskController {
     }
     
     @DeleteMapping()
+    @Transactional
     public ResponseEntity<?> unassignUser(@RequestParam Long taskId, @RequestParam Long userId)
     {
-        repo.findById(taskId).ifPresent(it -> it.removeUser(userId));
+        TaskAssignee assignee = entityManager.find(TaskAssignee.class, new TaskAssignee.Key(taskId, userId));
+        if (assignee != null) {
+            Task task = assignee.getTask();
+            task.detach(userId);
+            entityManager.remove(assignee);
+            task.markModified();
+            events.publishEvent(TaskChange.unassigned(taskId, List.of(userId)));
+        }
 
         return ResponseEntity.noContent().build();
-    }  
+    }
+
+    @PutMapping("/assignments")
+    @Transactional
+    public AssignmentBatchResult assignUsers(@RequestBody AssignmentBatch batch)
+    {
+        List<Long> taskIds = requireAll(batch.taskIds(), repo::findExistingIds, TaskNotFoundException::new);
+        List<Long> userIds = requireAll(batch.userIds(), userRepo::findExistingIds, UserNotFoundException::new);
+        if (userIds.isEmpty()) {
+            return new AssignmentBatchResult(0);
+        }
+
+        int changed = 0;
+        List<Long> assignedTasks = new ArrayList<>();
+        for (List<Long> chunk : partition(taskIds)) {
+            Set<TaskAssignment> existing = new HashSet<>(repo.findAssignments(chunk, userIds));
+            for (Long taskId : chunk) {
+                List<Long> assignedUsers = new ArrayList<>();
+                for (Long userId : userIds) {
+                    if (!existing.contains(new TaskAssignment(taskId, userId))) {
+                        entityManager.persist(new TaskAssignee(entityManager.getReference(Task.class, taskId), userId));
+                        assignedUsers.add(userId);
+                        flushBatch(changed++);
+                    }
+                }
+                if (!assignedUsers.isEmpty()) {
+                    assignedTasks.add(taskId);
+                    events.publishEvent(TaskChange.assigned(taskId, assignedUsers));
+                }
+            }
+        }
+        entityManager.flush();
+        Instant now = OpenWrites.stamp();
+        partition(assignedTasks).forEach(chunk -> repo.incrementVersions(chunk, now));
+        entityManager.clear();
+        return new AssignmentBatchResult(changed);
+    }
+
+    @DeleteMapping("/assignments")
+    @Transactional
+    public AssignmentBatchResult unassignUsers(@RequestBody AssignmentBatch batch)
+    {
+        List<Long> userIds = distinct(batch.userIds());
+        if (userIds.isEmpty()) {
+            return new AssignmentBatchResult(0);
+        }
+
+        long changed = 0;
+        for (List<Long> chunk : partition(distinct(batch.taskIds()))) {
+            Map<Long, List<Long>> assignedTasks = repo.findAssignments(chunk, userIds).stream()
+            .collect(Collectors.groupingBy(TaskAssignment::taskId, LinkedHashMap::new, Collectors.mapping(TaskAssignment::userId, Collectors.toList())));
+            if (!assignedTasks.isEmpty()) {
+                changed += repo.deleteAssignments(assignedTasks.keySet(), userIds);
+                repo.incrementVersions(assignedTasks.keySet(), OpenWrites.stamp());
+                assignedTasks.forEach((taskId, unassignedUsers) -> events.publishEvent(TaskChange.unassigned(taskId, unassignedUsers)));
+            }
+        }
+        entityManager.clear();
+        return new AssignmentBatchResult(changed);
+    }
+
+    /**
+     * Checks that every id exists with one {@code IN} query per
+     * {@code BULK_LOOKUP_SIZE} ids and returns them without duplicates.
+     */
+    private static List<Long> requireAll(List<Long> ids, Function<Collection<Long>, List<Long>> findExistingIds, Function<Long, RuntimeException> notFound)
+    {
+        List<Long> requested = distinct(ids);
+        Set<Long> existing = new HashSet<>();
+        partition(requested).forEach(chunk -> existing.addAll(findExistingIds.apply(chunk)));
+        requested.stream()
+        .filter(id -> !existing.contains(id))
+        .findFirst()
+        .ifPresent(id -> {
+            throw notFound.apply(id);
+        });
+        return requested;
+    }
+
+    private static List<Long> distinct(List<Long> ids)
+    {
+        return ids == null ? List.of() : ids.stream().filter(Objects::nonNull).distinct().toList();
+    }
+
+    private static List<List<Long>> partition(List<Long> ids)
+    {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += BULK_LOOKUP_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + BULK_LOOKUP_SIZE, ids.size())));
+        }
+        return chunks;
+    }
 }
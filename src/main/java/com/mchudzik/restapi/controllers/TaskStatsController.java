@@ -0,0 +1,29 @@
+package com.mchudzik.restapi.controllers;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+
+import com.mchudzik.restapi.models.TaskStats;
+import com.mchudzik.restapi.stats.TaskStatistics;
+
+/**
+ * Task counts for dashboards, answered from memory rather than by loading
+ * and counting the tasks, see {@link TaskStatistics}.
+ */
+@RestController
+@RequestMapping("/tasks/stats")
+@Profile("!reactive")
+public class TaskStatsController {
+    private final TaskStatistics statistics;
+
+    TaskStatsController(TaskStatistics statistics)
+    {
+        this.statistics = statistics;
+    }
+
+    @GetMapping
+    public TaskStats getStats()
+    {
+        return statistics.stats();
+    }
+}
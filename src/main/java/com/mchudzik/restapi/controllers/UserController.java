@@ -1,61 +1,187 @@
 package com.mchudzik.restapi.controllers;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 import com.mchudzik.restapi.assemblers.UserModelAssembler;
+import com.mchudzik.restapi.exceptions.PreconditionFailedException;
 import com.mchudzik.restapi.exceptions.UserNotFoundException;
+import com.mchudzik.restapi.models.DeltaModel;
+import com.mchudzik.restapi.models.Tombstone;
 import com.mchudzik.restapi.models.User;
+import com.mchudzik.restapi.models.UserFields;
 import com.mchudzik.restapi.repositories.UserRepository;
+import com.mchudzik.restapi.repositories.UserSpecifications;
+import com.mchudzik.restapi.search.UserSearchIndex;
+import com.mchudzik.restapi.sync.DeltaSync;
 
 @RestController()
 @RequestMapping("/users")
+@Profile("!reactive")
 public class UserController {
     private final UserRepository repo;
     private final UserModelAssembler assembler;
+    private final UserSearchIndex searchIndex;
+    private final DeltaSync sync;
 
-    UserController(UserRepository repo, UserModelAssembler assembler)
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    UserController(UserRepository repo, UserModelAssembler assembler, UserSearchIndex searchIndex, DeltaSync sync)
     {
         this.repo = repo;
         this.assembler = assembler;
+        this.searchIndex = searchIndex;
+        this.sync = sync;
     }
 
     @GetMapping()
-    public CollectionModel<EntityModel<User>> listUsers()
+    public CollectionModel<EntityModel<?>> listUsers(@RequestParam(required=false) Long after, @RequestParam(required=false) Integer limit,
+        @RequestParam(required=false) List<String> fields, @RequestParam(required=false) Instant modifiedSince, WebRequest request)
     {
-        List<EntityModel<User>> users =  repo.findAll().stream()
-        .map(assembler::toModel)
-        .collect(Collectors.toList());
+        if (modifiedSince != null) {
+            Instant syncedTo = sync.nextSyncPoint();
+            List<Long> deleted = sync.deletedSince(Tombstone.Type.USER, modifiedSince);
+            Specification<User> spec = UserSpecifications.modifiedSince(modifiedSince);
+            List<EntityModel<?>> users = fields == null ? toItems(repo.findAll(spec, Sort.by("id"))) : toFieldItems(repo.findFields(spec, fields, Pageable.unpaged()));
+
+            return assembler.applyView(new DeltaModel<>(users, deleted, syncedTo,
+                linkTo(methodOn(UserController.class).listUsers(null, null, fields, modifiedSince, null)).withSelfRel().expand(),
+                linkTo(methodOn(UserController.class).listUsers(null, null, fields, syncedTo, null)).withRel(TaskController.SYNC_REL).expand()));
+        }
+        if (after == null && limit == null) {
+            if (request.checkNotModified(ETags.of(repo.findVersionStamp()))) {
+                return null;
+            }
+            List<EntityModel<?>> users = fields == null ? toItems(repo.findAll()) : toFieldItems(repo.findFields(null, fields, Pageable.unpaged()));
+
+            return assembler.applyView(CollectionModel.of(users, linkTo(methodOn(UserController.class).listUsers(null, null, fields, null, null)).withSelfRel().expand()));
+        }
 
-        return CollectionModel.of(users, linkTo(methodOn(UserController.class).listUsers()).withSelfRel());
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Long from = after == null ? Long.MIN_VALUE : after;
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1, Sort.by("id"));
+        List<EntityModel<?>> users = fields == null ? toItems(repo.findAllByIdGreaterThan(from, pageRequest))
+            : toFieldItems(repo.findFields(UserSpecifications.idGreaterThan(from), fields, pageRequest));
+        boolean hasNext = users.size() > pageSize;
+        if (hasNext) {
+            users = users.subList(0, pageSize);
+        }
+
+        CollectionModel<EntityModel<?>> model = CollectionModel.of(users, linkTo(methodOn(UserController.class).listUsers(after, pageSize, fields, null, null)).withSelfRel().expand());
+        if (hasNext) {
+            Long lastId = idOf(users.get(users.size() - 1));
+            model.add(linkTo(methodOn(UserController.class).listUsers(lastId, pageSize, fields, null, null)).withRel(IanaLinkRelations.NEXT).expand());
+        }
+        return assembler.applyView(model);
     }
     
     @GetMapping("/{id}")
-    public EntityModel<User> findUserByID(@PathVariable Long id)
+    public EntityModel<User> findUserByID(@PathVariable Long id, WebRequest request)
     {
         User user = repo.findById(id).orElseThrow(() -> new UserNotFoundException(id));
+        if (request.checkNotModified(ETags.of(user.getVersion()))) {
+            return null;
+        }
         
         return assembler.toModel(user);
         
     }
     
     @GetMapping("/byName")
-    public CollectionModel<EntityModel<User>> findUserByString(@RequestParam String name)
+    public CollectionModel<EntityModel<?>> findUserByString(@RequestParam String name, @RequestParam(required=false) Integer page, @RequestParam(required=false) Integer size,
+        @RequestParam(required=false) List<String> fields)
     {
-        
-        List<EntityModel<User>> users =  repo.findAllByNameContainingOrSurnameContainingAllIgnoreCase(name, name).stream()
-        .map(assembler::toModel)
+        List<Long> ids = searchIndex.search(name);
+
+        if (page == null && size == null) {
+            List<EntityModel<?>> users = itemsInOrder(ids, fields);
+
+            return assembler.applyView(CollectionModel.of(users, linkTo(methodOn(UserController.class).findUserByString(name, null, null, fields)).withSelfRel().expand()));
+        }
+
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = page == null ? 0 : Math.max(0, page);
+        int from = (int) Math.min((long) pageNumber * pageSize, ids.size());
+        int to = Math.min(from + pageSize, ids.size());
+
+        List<EntityModel<?>> users = itemsInOrder(ids.subList(from, to), fields);
+
+        PagedModel<EntityModel<?>> model = PagedModel.of(users, new PagedModel.PageMetadata(pageSize, pageNumber, ids.size()),
+            linkTo(methodOn(UserController.class).findUserByString(name, pageNumber, pageSize, fields)).withSelfRel().expand());
+        if (to < ids.size()) {
+            model.add(linkTo(methodOn(UserController.class).findUserByString(name, pageNumber + 1, pageSize, fields)).withRel(IanaLinkRelations.NEXT).expand());
+        }
+        return assembler.applyView(model);
+    }
+
+    /**
+     * Collection items for the users with the given ids, in that order: just
+     * the requested fields when {@code fields} is given, otherwise the full
+     * users.
+     */
+    private List<EntityModel<?>> itemsInOrder(List<Long> ids, List<String> fields)
+    {
+        if (fields == null) {
+            return toItems(loadInOrder(ids));
+        }
+        Map<Long, UserFields> byId = ids.isEmpty() ? Map.of() : repo.findFields(UserSpecifications.idIn(ids), fields, Pageable.unpaged()).stream()
+        .collect(Collectors.toMap(UserFields::getId, Function.identity()));
+
+        return toFieldItems(ids.stream()
+        .map(byId::get)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList()));
+    }
+
+    private List<User> loadInOrder(List<Long> ids)
+    {
+        Map<Long, User> byId = repo.findAllById(ids).stream()
+        .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        return ids.stream()
+        .map(byId::get)
+        .filter(Objects::nonNull)
         .collect(Collectors.toList());
-        
-        return CollectionModel.of(users, linkTo(methodOn(UserController.class).findUserByString(name)).withSelfRel());
-        
+    }
+
+    private List<EntityModel<?>> toItems(List<User> users)
+    {
+        return users.stream()
+        .map(assembler::toCollectionItem)
+        .collect(Collectors.toList());
+    }
+
+    private List<EntityModel<?>> toFieldItems(List<UserFields> users)
+    {
+        return users.stream()
+        .map(assembler::toCollectionItem)
+        .collect(Collectors.toList());
+    }
+
+    private static Long idOf(EntityModel<?> item)
+    {
+        return item.getContent() instanceof User user ? user.getId() : ((UserFields) item.getContent()).getId();
     }
     
     @PostMapping()
@@ -69,28 +195,30 @@ public class UserController {
 
     
     @PutMapping("/{id}")
-    public ResponseEntity<?> editUser(@RequestBody User newUser, @PathVariable Long id) 
+    public ResponseEntity<?> editUser(@RequestBody User newUser, @PathVariable Long id, @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch) 
     {
     User editedUser = repo.findById(id).map(user -> {
+        ETags.checkIfMatch(ifMatch, "User", id, user.getVersion());
         user.setName(newUser.getName());
         user.setSurname(newUser.getSurname());
         user.setEmail(newUser.getEmail());
         return repo.save(user);
     })
-    .orElseGet(() -> {
-        newUser.setID(id);
-        return repo.save(newUser);
-    });
+    .orElseThrow(() -> ifMatch != null ? new PreconditionFailedException("User", id) : new UserNotFoundException(id));
     
     EntityModel<User> entityModel = assembler.toModel(editedUser);
     
-    return ResponseEntity.created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri()).body(entityModel);
+    return ResponseEntity.created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri()).eTag(ETags.of(editedUser.getVersion())).body(entityModel);
 }
 
     @DeleteMapping("/{id}")
+    @Transactional
     public ResponseEntity<?> deleteUser(@PathVariable Long id) 
     {
-        repo.deleteById(id);
+        repo.findById(id).ifPresent(user -> {
+            repo.delete(user);
+            sync.recordDeletion(Tombstone.Type.USER, id);
+        });
         
         return ResponseEntity.noContent().build();
     }
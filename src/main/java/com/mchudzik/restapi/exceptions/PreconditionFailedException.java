@@ -0,0 +1,7 @@
+package com.mchudzik.restapi.exceptions;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String resource, Long id) {
+        super(resource + " with ID = '" + id + "' has been modified since it was read.");
+    }
+}
@@ -0,0 +1,10 @@
+package com.mchudzik.restapi.exceptions;
+
+import java.time.Instant;
+
+public class SyncExpiredException extends RuntimeException {
+    public SyncExpiredException(Instant modifiedSince, Instant horizon)
+    {
+        super("Deletions before " + horizon + " are no longer kept, cannot sync from " + modifiedSince + ". Reload without modifiedSince.");
+    }
+}
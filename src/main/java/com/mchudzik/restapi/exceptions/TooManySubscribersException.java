@@ -0,0 +1,8 @@
+package com.mchudzik.restapi.exceptions;
+
+public class TooManySubscribersException extends RuntimeException {
+    public TooManySubscribersException(int maxSubscribers)
+    {
+        super("All " + maxSubscribers + " task change streams are taken. Retry later or long-poll instead.");
+    }
+}
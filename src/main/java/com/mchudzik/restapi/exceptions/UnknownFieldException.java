@@ -0,0 +1,8 @@
+package com.mchudzik.restapi.exceptions;
+
+public class UnknownFieldException extends RuntimeException {
+    public UnknownFieldException(String field, String entity)
+    {
+        super(field + " is not a field of " + entity + ".");
+    }
+}
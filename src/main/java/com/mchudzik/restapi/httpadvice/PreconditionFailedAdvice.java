@@ -0,0 +1,39 @@
+package com.mchudzik.restapi.httpadvice;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import com.mchudzik.restapi.exceptions.PreconditionFailedException;
+
+@ControllerAdvice
+public class PreconditionFailedAdvice {
+
+    @ResponseBody
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    String preconditionFailedHandler(PreconditionFailedException e)
+    {
+        return e.getMessage();
+    }
+
+    @ResponseBody
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    String optimisticLockingFailureHandler(ObjectOptimisticLockingFailureException e)
+    {
+        return "Resource with ID = '" + e.getIdentifier() + "' has been modified concurrently.";
+    }
+
+    @ResponseBody
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    String reactiveOptimisticLockingFailureHandler(OptimisticLockingFailureException e)
+    {
+        return e.getMessage();
+    }
+}
@@ -0,0 +1,21 @@
+package com.mchudzik.restapi.httpadvice;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import com.mchudzik.restapi.exceptions.SyncExpiredException;
+
+@ControllerAdvice
+public class SyncExpiredAdvice {
+
+    @ResponseBody
+    @ExceptionHandler(SyncExpiredException.class)
+    @ResponseStatus(HttpStatus.GONE)
+    String syncExpiredHandler(SyncExpiredException e)
+    {
+        return e.getMessage();
+    }
+}
@@ -0,0 +1,21 @@
+package com.mchudzik.restapi.httpadvice;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import com.mchudzik.restapi.exceptions.TooManySubscribersException;
+
+@ControllerAdvice
+public class TooManySubscribersAdvice {
+
+    @ResponseBody
+    @ExceptionHandler(TooManySubscribersException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    String tooManySubscribersHandler(TooManySubscribersException e)
+    {
+        return e.getMessage();
+    }
+}
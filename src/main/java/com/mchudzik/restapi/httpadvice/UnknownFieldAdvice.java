@@ -0,0 +1,21 @@
+package com.mchudzik.restapi.httpadvice;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import com.mchudzik.restapi.exceptions.UnknownFieldException;
+
+@ControllerAdvice
+public class UnknownFieldAdvice {
+
+    @ResponseBody
+    @ExceptionHandler(UnknownFieldException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    String unknownFieldHandler(UnknownFieldException e)
+    {
+        return e.getMessage();
+    }
+}
@@ -0,0 +1,10 @@
+package com.mchudzik.restapi.models;
+
+import java.util.List;
+
+/**
+ * Request body of a batch assignment: every user in {@code userIds} is
+ * assigned to, or unassigned from, every task in {@code taskIds}.
+ */
+public record AssignmentBatch(List<Long> taskIds, List<Long> userIds) {
+}
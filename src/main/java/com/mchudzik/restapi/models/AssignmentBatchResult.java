@@ -0,0 +1,8 @@
+package com.mchudzik.restapi.models;
+
+/**
+ * Outcome of a batch assignment. {@code changed} counts only the assignments
+ * that were actually inserted or deleted, so repeating a batch reports zero.
+ */
+public record AssignmentBatchResult(long changed) {
+}
@@ -0,0 +1,9 @@
+package com.mchudzik.restapi.models;
+
+/**
+ * Outcome of a single element of a bulk request. {@code index} is the position
+ * of the element in the request body, {@code status} the HTTP status the
+ * element would have received as a single-entity call.
+ */
+public record BulkItemResult(int index, Long id, int status) {
+}
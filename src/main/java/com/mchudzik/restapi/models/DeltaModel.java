@@ -0,0 +1,60 @@
+package com.mchudzik.restapi.models;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.Links;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Answer to a {@code modifiedSince} request: the entities created or
+ * changed since then, the ids of those deleted since then, and
+ * {@code syncedTo}, the point to send as {@code modifiedSince} next time.
+ * Clients apply the deletions first, as an id may be deleted and then
+ * stored again.
+ */
+public class DeltaModel<T> extends CollectionModel<T> {
+    private final List<Long> deleted;
+    private final Instant syncedTo;
+
+    public DeltaModel(Iterable<T> content, List<Long> deleted, Instant syncedTo, Link... links)
+    {
+        super(content, Links.of(links), null);
+        this.deleted = deleted;
+        this.syncedTo = syncedTo;
+    }
+
+    @JsonProperty("deleted")
+    public List<Long> getDeleted(){
+        return this.deleted;
+    }
+
+    @JsonProperty("syncedTo")
+    public Instant getSyncedTo(){
+        return this.syncedTo;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if(this == o)
+        {
+            return true;
+        }
+        if(!(o instanceof DeltaModel<?> that) || !super.equals(o))
+        {
+            return false;
+        }
+        return Objects.equals(this.deleted, that.deleted) && Objects.equals(this.syncedTo, that.syncedTo);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(super.hashCode(), this.deleted, this.syncedTo);
+    }
+}
@@ -0,0 +1,32 @@
+package com.mchudzik.restapi.models;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Some of the fields of an entity, as requested with {@code fields=}. Holds
+ * just the selected values, always including the id, and serializes to
+ * exactly those.
+ */
+public abstract class FieldSet {
+    private final Map<String, Object> values;
+
+    protected FieldSet(Map<String, Object> values)
+    {
+        this.values = values;
+    }
+
+    @JsonIgnore
+    public Long getId()
+    {
+        return (Long) this.values.get("id");
+    }
+
+    @JsonAnyGetter
+    public Map<String, Object> getValues()
+    {
+        return this.values;
+    }
+}
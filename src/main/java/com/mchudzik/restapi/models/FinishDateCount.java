@@ -0,0 +1,8 @@
+package com.mchudzik.restapi.models;
+
+import java.time.LocalDate;
+
+/**
+ * Number of tasks due on one date, as counted by the database.
+ */
+public record FinishDateCount(LocalDate finishDate, Long count) {}
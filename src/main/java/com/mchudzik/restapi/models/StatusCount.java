@@ -0,0 +1,8 @@
+package com.mchudzik.restapi.models;
+
+import com.mchudzik.restapi.enums.Status;
+
+/**
+ * Number of tasks in one status, as counted by the database.
+ */
+public record StatusCount(Status status, Long count) {}
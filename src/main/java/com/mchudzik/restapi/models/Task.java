@@ -1,33 +1,75 @@
 package com.mchudzik.restapi.models;
 
+import java.time.Instant;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.search.TaskIndexListener;
+import com.mchudzik.restapi.sync.OpenWrites;
 
-import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.MapKey;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "task_status_finish_date_idx", columnList = "status, finishDate"),
+    @Index(name = "task_finish_date_idx", columnList = "finishDate"),
+    @Index(name = "task_last_modified_idx", columnList = "lastModified")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "task")
+@EntityListeners(TaskIndexListener.class)
 public class Task {
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_seq")
+    @SequenceGenerator(name = "task_seq", sequenceName = "task_seq", allocationSize = 50)
     private Long id;
     private String name;
     private String desc;
     @Enumerated(EnumType.STRING)
     private Status status;
     private LocalDate finishDate;
-    @ElementCollection
-    private List<Long> assignedUsers;
+    @OneToMany(mappedBy = "task", cascade = CascadeType.ALL, orphanRemoval = true)
+    @MapKey(name = "userId")
+    @OrderBy("userId")
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "task-assignees")
+    @JsonIgnore
+    private Map<Long, TaskAssignee> assignees;
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant lastModified;
 
     Task(){
-        assignedUsers = new ArrayList<>();
+        assignees = new LinkedHashMap<>();
     }
 
     public Task(String name, String desc, Status status, LocalDate finishDate)
@@ -60,7 +102,15 @@ public class Task {
     }
 
     public List<Long> getAssignedUsers(){
-        return this.assignedUsers;
+        return List.copyOf(this.assignees.keySet());
+    }
+
+    public Long getVersion(){
+        return this.version;
+    }
+
+    public Instant getLastModified(){
+        return this.lastModified;
     }
 
 
@@ -87,22 +137,69 @@ public class Task {
 
     public void setAssignedUsers(List<Long> assignedUsers)
     {
-        this.assignedUsers = assignedUsers;
+        this.assignees.keySet().retainAll(assignedUsers);
+        assignedUsers.forEach(this::addUser);
     }
 
     public void addUser(Long id){
-        if(!assignedUsers.contains(id))
-        {
-            this.assignedUsers.add(id);
-        }
+        this.assignees.computeIfAbsent(id, userId -> new TaskAssignee(this, userId));
     }
 
     public void removeUser(Long id)
     {
-        assignedUsers.removeIf(n -> (n.equals(id)));
+        this.assignees.remove(id);
+    }
+
+    /**
+     * Stamps the task as modified now, by the current transaction. Also
+     * makes it dirty, so a change stored outside of its own columns, like an
+     * assignment, still bumps its version when the task is flushed.
+     */
+    @PrePersist
+    @PreUpdate
+    public void markModified()
+    {
+        this.lastModified = OpenWrites.stamp();
+    }
+
+    /**
+     * Loads the assignee map if it is still lazy, so that the task can be
+     * serialized after its persistence context has closed.
+     */
+    public void initializeAssignees()
+    {
+        Hibernate.initialize(this.assignees);
+    }
+
+    /**
+     * Records an assignment persisted on its own, touching the assignee map
+     * only if it is already loaded so that assigning one user does not read
+     * all the others.
+     */
+    public void attach(TaskAssignee assignee)
+    {
+        if (Hibernate.isInitialized(this.assignees)) {
+            this.assignees.put(assignee.getUserId(), assignee);
+        }
+    }
+
+    /**
+     * Counterpart of {@link #attach} for an assignment removed on its own.
+     */
+    public void detach(Long userId)
+    {
+        if (Hibernate.isInitialized(this.assignees)) {
+            this.assignees.remove(userId);
+        }
     }
 
 
+    /**
+     * Equal when both are the same instance or carry the same generated id,
+     * so a task stays equal to its detached copies and Hibernate proxies but
+     * an unsaved one equals only itself. The id is read through
+     * {@link #getId()}, which proxies answer without loading.
+     */
     @Override
     public boolean equals(Object o)
     {
@@ -110,18 +207,22 @@ public class Task {
         {
             return true;
         }
-        if(!(o instanceof Task))
+        if(!(o instanceof Task task))
         {
             return false;
         }
-        Task task = (Task) o;
-        return this.id.equals(task.id);
+        return this.getId() != null && this.getId().equals(task.getId());
     }
 
+    /**
+     * The same for every task, as the id is only assigned on persist and the
+     * hash must not change while the entity sits in a hashed collection.
+     * Collections of many entities are better keyed by id.
+     */
     @Override
     public int hashCode()
     {
-        return Objects.hash(this.id,this.name,this.desc,this.status,this.finishDate,this.assignedUsers);
+        return Task.class.hashCode();
     }
 
     @Override
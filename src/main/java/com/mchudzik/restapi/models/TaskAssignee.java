@@ -0,0 +1,105 @@
+package com.mchudzik.restapi.models;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.MapsId;
+import jakarta.persistence.Table;
+
+/**
+ * One user assigned to one task. The (task_id, user_id) primary key makes
+ * each assignment unique, so assigning and unassigning are single-row
+ * inserts and deletes. The task part of the key is derived from the
+ * {@code task} association, which keeps it a plain property that collection
+ * cache eviction can resolve. The user column carries no foreign key, as
+ * tasks may reference users that were deleted.
+ */
+@Entity
+@Table(name = "task_assigned_users", indexes = @Index(name = "task_assigned_users_user_idx", columnList = "user_id"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "task-assignee")
+public class TaskAssignee {
+    @EmbeddedId
+    private Key id;
+    @MapsId("taskId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "task_id")
+    private Task task;
+    @Column(name = "user_id", insertable = false, updatable = false)
+    private Long userId;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private User user;
+
+    TaskAssignee() {}
+
+    public TaskAssignee(Task task, Long userId)
+    {
+        this.id = new Key(task.getId(), userId);
+        this.task = task;
+        this.userId = userId;
+    }
+
+    public Task getTask(){
+        return this.task;
+    }
+
+    public Long getUserId(){
+        return this.userId;
+    }
+
+    public User getUser(){
+        return this.user;
+    }
+
+    @Embeddable
+    public static class Key implements Serializable {
+        @Column(name = "task_id")
+        private Long taskId;
+        @Column(name = "user_id")
+        private Long userId;
+
+        Key() {}
+
+        public Key(Long taskId, Long userId)
+        {
+            this.taskId = taskId;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if(this == o)
+            {
+                return true;
+            }
+            if(!(o instanceof Key))
+            {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(this.taskId, key.taskId) && Objects.equals(this.userId, key.userId);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(this.taskId, this.userId);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.mchudzik.restapi.models;
+
+/**
+ * One row of the task/assignee join table, read without loading either side.
+ */
+public record TaskAssignment(Long taskId, Long userId) {}
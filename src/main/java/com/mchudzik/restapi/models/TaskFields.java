@@ -0,0 +1,18 @@
+package com.mchudzik.restapi.models;
+
+import java.util.Map;
+
+import org.springframework.hateoas.server.core.Relation;
+
+/**
+ * Projection of a {@link Task} onto the requested fields, rendered under the
+ * same relations as the full task.
+ */
+@Relation(itemRelation = "task", collectionRelation = "taskList")
+public class TaskFields extends FieldSet {
+
+    public TaskFields(Map<String, Object> values)
+    {
+        super(values);
+    }
+}
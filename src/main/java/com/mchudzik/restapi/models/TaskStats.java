@@ -0,0 +1,11 @@
+package com.mchudzik.restapi.models;
+
+import java.util.Map;
+
+import com.mchudzik.restapi.enums.Status;
+
+/**
+ * Task counters: all tasks, tasks per status, tasks per assigned user, and
+ * open tasks (new, in progress or in verification) past their finish date.
+ */
+public record TaskStats(long total, Map<Status, Long> byStatus, Map<Long, Long> byUser, long overdue) {}
@@ -0,0 +1,11 @@
+package com.mchudzik.restapi.models;
+
+import java.time.LocalDate;
+
+import com.mchudzik.restapi.enums.Status;
+
+/**
+ * The id and version of a task, with the status and finish date a status
+ * change replaces, read without loading the task.
+ */
+public record TaskVersion(Long id, Long version, Status status, LocalDate finishDate) {}
@@ -0,0 +1,85 @@
+package com.mchudzik.restapi.models;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * A deleted task or user, kept so that clients syncing with
+ * {@code modifiedSince} learn about the deletion. Deleting the same id
+ * again only moves {@code deletedAt}.
+ */
+@Entity
+@Table(indexes = @Index(name = "tombstone_type_deleted_at_idx", columnList = "type, deletedAt"))
+public class Tombstone {
+    @EmbeddedId
+    private Key id;
+    private Instant deletedAt;
+
+    Tombstone() {}
+
+    public Tombstone(Type type, Long entityId, Instant deletedAt)
+    {
+        this.id = new Key(type, entityId);
+        this.deletedAt = deletedAt;
+    }
+
+    public Long getEntityId(){
+        return this.id.entityId;
+    }
+
+    public Instant getDeletedAt(){
+        return this.deletedAt;
+    }
+
+    public enum Type {
+        TASK, USER
+    }
+
+    @Embeddable
+    public static class Key implements Serializable {
+        @Enumerated(EnumType.STRING)
+        @Column(name = "type")
+        private Type type;
+        @Column(name = "entity_id")
+        private Long entityId;
+
+        Key() {}
+
+        public Key(Type type, Long entityId)
+        {
+            this.type = type;
+            this.entityId = entityId;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if(this == o)
+            {
+                return true;
+            }
+            if(!(o instanceof Key))
+            {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(this.type, key.type) && Objects.equals(this.entityId, key.entityId);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(this.type, this.entityId);
+        }
+    }
+}
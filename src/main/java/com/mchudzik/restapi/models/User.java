@@ -1,19 +1,48 @@
 package com.mchudzik.restapi.models;
 
 
-import java.util.Objects;
+import java.time.Instant;
+import java.util.Set;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.mchudzik.restapi.search.UserIndexListener;
+import com.mchudzik.restapi.sync.OpenWrites;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
+@Table(indexes = @Index(name = "user_last_modified_idx", columnList = "lastModified"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
+@EntityListeners(UserIndexListener.class)
 public class User {
     @Id @GeneratedValue
     private Long id;
     private String name;
     private String surname;
     private String email;
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant lastModified;
+    @OneToMany(mappedBy = "user")
+    @JsonIgnore
+    private Set<TaskAssignee> assignments;
 
     User() {}
 
@@ -40,6 +69,18 @@ public class User {
         return this.email;
     }
 
+    public Long getVersion(){
+        return this.version;
+    }
+
+    public Instant getLastModified(){
+        return this.lastModified;
+    }
+
+    public Set<TaskAssignee> getAssignments(){
+        return this.assignments;
+    }
+
     public void setID(Long id)
     {
         this.id = id;
@@ -57,6 +98,19 @@ public class User {
         this.email = email;
     }
 
+    @PrePersist
+    @PreUpdate
+    void markModified()
+    {
+        this.lastModified = OpenWrites.stamp();
+    }
+
+    /**
+     * Equal when both are the same instance or carry the same generated id,
+     * so a user stays equal to its detached copies and Hibernate proxies but
+     * an unsaved one equals only itself. The id is read through
+     * {@link #getId()}, which proxies answer without loading.
+     */
     @Override
     public boolean equals(Object o)
     {
@@ -64,18 +118,22 @@ public class User {
         {
             return true;
         }
-        if(!(o instanceof User))
+        if(!(o instanceof User user))
         {
             return false;
         }
-        User user = (User) o;
-        return this.id.equals(user.id);
+        return this.getId() != null && this.getId().equals(user.getId());
     }
 
+    /**
+     * The same for every user, as the id is only assigned on persist and the
+     * hash must not change while the entity sits in a hashed collection.
+     * Collections of many entities are better keyed by id.
+     */
     @Override
     public int hashCode()
     {
-        return Objects.hash(this.id, this.name, this.surname, this.email);
+        return User.class.hashCode();
     }
 
     @Override
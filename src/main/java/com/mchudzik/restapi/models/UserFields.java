@@ -0,0 +1,18 @@
+package com.mchudzik.restapi.models;
+
+import java.util.Map;
+
+import org.springframework.hateoas.server.core.Relation;
+
+/**
+ * Projection of a {@link User} onto the requested fields, rendered under the
+ * same relations as the full user.
+ */
+@Relation(itemRelation = "user", collectionRelation = "userList")
+public class UserFields extends FieldSet {
+
+    public UserFields(Map<String, Object> values)
+    {
+        super(values);
+    }
+}
@@ -0,0 +1,6 @@
+package com.mchudzik.restapi.models;
+
+/**
+ * Number of tasks assigned to one user, as counted by the database.
+ */
+public record UserTaskCount(Long userId, Long count) {}
@@ -0,0 +1,13 @@
+package com.mchudzik.restapi.models;
+
+/**
+ * Cheap aggregate over a table that changes whenever a row is created,
+ * updated or deleted: ids are never reused and versions only grow.
+ */
+public interface VersionStamp {
+    long getCount();
+
+    Long getMaxId();
+
+    Long getVersionSum();
+}
@@ -0,0 +1,106 @@
+package com.mchudzik.restapi.repositories;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.mchudzik.restapi.exceptions.UnknownFieldException;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+
+/**
+ * Selects some of the basic attributes of the entities matching a
+ * {@link Specification} as a tuple query, so only those columns are read and
+ * neither associations nor the second-level cache are involved. The id is
+ * always selected. Without a sort in {@code pageable} rows come by id.
+ * <p>
+ * Only attributes that the full representation serializes can be selected,
+ * so a column the API leaves out, like a {@code @JsonIgnore}'d one, stays
+ * internal.
+ */
+final class FieldSelection {
+    private static final Map<Class<?>, Set<String>> SELECTABLE = new ConcurrentHashMap<>();
+
+    private FieldSelection() {}
+
+    static <T> List<Map<String, Object>> select(EntityManager entityManager, ObjectMapper objectMapper, Class<T> type, Specification<T> spec, Collection<String> fields, Pageable pageable)
+    {
+        EntityType<T> entity = entityManager.getMetamodel().entity(type);
+        Set<String> selectable = SELECTABLE.computeIfAbsent(type, key -> selectable(entity, objectMapper));
+
+        List<String> columns = new ArrayList<>();
+        columns.add("id");
+        for (String field : fields) {
+            if (!selectable.contains(field)) {
+                throw new UnknownFieldException(field, entity.getName());
+            }
+            if (!columns.contains(field)) {
+                columns.add(field);
+            }
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(type);
+        query.multiselect(columns.stream().<Selection<?>>map(root::get).toList());
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSortOr(Sort.by("id")), root, cb));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList().stream()
+        .map(tuple -> {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                values.put(columns.get(i), tuple.get(i));
+            }
+            return values;
+        })
+        .toList();
+    }
+
+    /**
+     * The basic attributes of {@code entity} that Jackson serializes.
+     */
+    private static Set<String> selectable(EntityType<?> entity, ObjectMapper objectMapper)
+    {
+        Set<String> serialized = objectMapper.getSerializationConfig()
+        .introspect(objectMapper.constructType(entity.getJavaType()))
+        .findProperties().stream()
+        .filter(BeanPropertyDefinition::couldSerialize)
+        .map(BeanPropertyDefinition::getName)
+        .collect(Collectors.toSet());
+        return entity.getSingularAttributes().stream()
+        .filter(attribute -> attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC)
+        .map(Attribute::getName)
+        .filter(serialized::contains)
+        .collect(Collectors.toUnmodifiableSet());
+    }
+}
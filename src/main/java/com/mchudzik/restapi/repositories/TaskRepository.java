@@ -1,23 +1,143 @@
 package com.mchudzik.restapi.repositories;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.models.FinishDateCount;
+import com.mchudzik.restapi.models.StatusCount;
 import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.models.TaskAssignment;
+import com.mchudzik.restapi.models.TaskVersion;
+import com.mchudzik.restapi.models.UserTaskCount;
+import com.mchudzik.restapi.models.VersionStamp;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
-public interface TaskRepository extends JpaRepository<Task,Long>{
+public interface TaskRepository extends JpaRepository<Task,Long>, JpaSpecificationExecutor<Task>, TaskRepositoryCustom{
     
-    List<Task> findAllByAssignedUsers(Long id);
+    @Override
+    @EntityGraph(attributePaths = "assignees")
+    List<Task> findAll();
+
+    /**
+     * {@link #findById} with the assignees loaded, both possibly from the
+     * second-level cache, so the task can be rendered once the transaction
+     * has ended.
+     */
+    @Transactional(readOnly = true)
+    default Optional<Task> findWithAssigneesById(Long id)
+    {
+        Optional<Task> task = findById(id);
+        task.ifPresent(Task::initializeAssignees);
+        return task;
+    }
+
+    List<Task> findAllByIdGreaterThan(Long id, Pageable pageable);
+
+    /**
+     * Ids of a keyset page; the tasks themselves are then fetched with their
+     * assignees by {@link #findAllByIdIn}, as a join fetch cannot be limited
+     * in SQL.
+     */
+    @Query("select t.id from Task t where t.id > :id")
+    List<Long> findIdsByIdGreaterThan(Long id, Pageable pageable);
 
+    @EntityGraph(attributePaths = "assignees")
+    List<Task> findAllByIdIn(Collection<Long> ids, Sort sort);
+
+    @Override
+    @EntityGraph(attributePaths = "assignees")
+    List<Task> findAll(Specification<Task> spec, Sort sort);
+
+    /**
+     * Starts from the assignments rather than the user, so tasks still
+     * assigned to a deleted user are found, as with
+     * {@link TaskSpecifications#assignedTo}.
+     */
+    @Query("select t from TaskAssignee a join a.task t left join fetch t.assignees where a.userId = :userId order by t.id")
+    List<Task> findAllByAssignedUser(Long userId);
+
+    @EntityGraph(attributePaths = "assignees")
     List<Task> findAllByNameContainingOrDescContainingAllIgnoreCase(String name, String desc);
 
+    @EntityGraph(attributePaths = "assignees")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Task> findAllByStatus(Status status);
 
+    @EntityGraph(attributePaths = "assignees")
     List<Task> findAllByFinishDateLessThanEqual(LocalDate finishDate);
 
+    @EntityGraph(attributePaths = "assignees")
     List<Task> findAllByFinishDateBetween(LocalDate finishDateStart, LocalDate finishDateEnd);
-}
 
+    /**
+     * Every task, read past the second-level cache so a full export neither
+     * fills it nor evicts the entries other requests rely on.
+     */
+    @Query("select t from Task t left join fetch t.assignees order by t.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    Stream<Task> streamAllByOrderById();
+
+    @Query("select count(t) as count, max(t.id) as maxId, sum(t.version) as versionSum from Task t")
+    VersionStamp findVersionStamp();
+
+    @Query("select t.id from Task t where t.id in :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    /**
+     * Versions of those of {@code ids} that exist, their rows locked until the
+     * transaction ends so they cannot change before it writes them.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.mchudzik.restapi.models.TaskVersion(t.id, t.version, t.status, t.finishDate) from Task t where t.id in :ids")
+    List<TaskVersion> lockVersions(Collection<Long> ids);
+
+    @Query("select new com.mchudzik.restapi.models.TaskAssignment(a.task.id, a.userId) from TaskAssignee a where a.task.id in :taskIds and a.userId in :userIds")
+    List<TaskAssignment> findAssignments(Collection<Long> taskIds, Collection<Long> userIds);
+
+    @Query("select new com.mchudzik.restapi.models.StatusCount(t.status, count(t)) from Task t group by t.status")
+    List<StatusCount> countByStatus();
+
+    @Query("select new com.mchudzik.restapi.models.UserTaskCount(a.userId, count(a)) from TaskAssignee a group by a.userId")
+    List<UserTaskCount> countByUser();
+
+    @Query("select new com.mchudzik.restapi.models.FinishDateCount(t.finishDate, count(t)) from Task t"
+        + " where t.finishDate is not null and t.status in :statuses group by t.finishDate")
+    List<FinishDateCount> countByFinishDateAndStatusIn(Collection<Status> statuses);
+
+    @Modifying
+    @Query("delete from TaskAssignee a where a.task.id in :taskIds and a.userId in :userIds")
+    int deleteAssignments(Collection<Long> taskIds, Collection<Long> userIds);
+
+    @Modifying
+    @Query("update Task t set t.version = t.version + 1, t.lastModified = :now where t.id in :ids")
+    int incrementVersions(Collection<Long> ids, Instant now);
+
+    @Modifying
+    @Query("update Task t set t.status = :status, t.version = t.version + 1, t.lastModified = :now where t.id in :ids")
+    int updateStatuses(Status status, Collection<Long> ids, Instant now);
+}
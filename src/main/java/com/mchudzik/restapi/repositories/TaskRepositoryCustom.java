@@ -0,0 +1,20 @@
+package com.mchudzik.restapi.repositories;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.models.TaskFields;
+
+public interface TaskRepositoryCustom {
+
+    /**
+     * The requested fields of the tasks matching {@code spec}, reading only
+     * their columns. {@code assignedUsers} costs one more query for the ids
+     * on the page; without it the join table is not touched.
+     */
+    List<TaskFields> findFields(Specification<Task> spec, Collection<String> fields, Pageable pageable);
+}
@@ -0,0 +1,56 @@
+package com.mchudzik.restapi.repositories;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.models.TaskAssignment;
+import com.mchudzik.restapi.models.TaskFields;
+
+import jakarta.persistence.EntityManager;
+
+class TaskRepositoryImpl implements TaskRepositoryCustom {
+    private static final String ASSIGNED_USERS = "assignedUsers";
+    private static final int ASSIGNEE_LOOKUP_SIZE = 1000;
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    TaskRepositoryImpl(EntityManager entityManager, ObjectMapper objectMapper)
+    {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<TaskFields> findFields(Specification<Task> spec, Collection<String> fields, Pageable pageable)
+    {
+        List<String> columns = fields.stream().filter(field -> !ASSIGNED_USERS.equals(field)).toList();
+        List<Map<String, Object>> rows = FieldSelection.select(entityManager, objectMapper, Task.class, spec, columns, pageable);
+
+        if (columns.size() < fields.size()) {
+            Map<Long, List<Long>> assignees = findAssignees(rows.stream().map(row -> (Long) row.get("id")).toList());
+            rows.forEach(row -> row.put(ASSIGNED_USERS, assignees.getOrDefault((Long) row.get("id"), List.of())));
+        }
+        return rows.stream().map(TaskFields::new).toList();
+    }
+
+    private Map<Long, List<Long>> findAssignees(List<Long> taskIds)
+    {
+        Map<Long, List<Long>> assignees = new HashMap<>();
+        for (int from = 0; from < taskIds.size(); from += ASSIGNEE_LOOKUP_SIZE) {
+            entityManager.createQuery("select new com.mchudzik.restapi.models.TaskAssignment(a.task.id, a.userId) from TaskAssignee a where a.task.id in :taskIds order by a.userId", TaskAssignment.class)
+            .setParameter("taskIds", taskIds.subList(from, Math.min(from + ASSIGNEE_LOOKUP_SIZE, taskIds.size())))
+            .getResultStream()
+            .forEach(assignment -> assignees.computeIfAbsent(assignment.taskId(), id -> new ArrayList<>()).add(assignment.userId()));
+        }
+        return assignees;
+    }
+}
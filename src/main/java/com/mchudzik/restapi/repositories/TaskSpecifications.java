@@ -0,0 +1,76 @@
+package com.mchudzik.restapi.repositories;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.models.TaskAssignee;
+
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+/**
+ * Predicates for {@link TaskRepository#findAll(Specification)} and
+ * {@link TaskRepository#findFields}. Each filter that was not requested is
+ * left out of the query entirely rather than written as
+ * {@code :param is null or ...}, so the database can still pick the matching
+ * index.
+ */
+public final class TaskSpecifications {
+
+    private TaskSpecifications() {}
+
+    public static Specification<Task> filter(Status status, LocalDate startDate, LocalDate endDate, Long userId)
+    {
+        return Specification.allOf(
+            status == null ? null : hasStatus(status),
+            startDate == null ? null : finishesOnOrAfter(startDate),
+            endDate == null ? null : finishesOnOrBefore(endDate),
+            userId == null ? null : assignedTo(userId));
+    }
+
+    public static Specification<Task> idGreaterThan(Long id)
+    {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), id);
+    }
+
+    public static Specification<Task> idIn(Collection<Long> ids)
+    {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    public static Specification<Task> hasStatus(Status status)
+    {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Task> finishesOnOrAfter(LocalDate date)
+    {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("finishDate"), date);
+    }
+
+    public static Specification<Task> finishesOnOrBefore(LocalDate date)
+    {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("finishDate"), date);
+    }
+
+    public static Specification<Task> modifiedSince(Instant since)
+    {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("lastModified"), since);
+    }
+
+    public static Specification<Task> assignedTo(Long userId)
+    {
+        return (root, query, cb) -> {
+            Subquery<Long> assignee = query.subquery(Long.class);
+            Root<TaskAssignee> assignment = assignee.from(TaskAssignee.class);
+            assignee.select(assignment.get("userId"))
+            .where(cb.equal(assignment.get("task"), root), cb.equal(assignment.get("userId"), userId));
+            return cb.exists(assignee);
+        };
+    }
+}
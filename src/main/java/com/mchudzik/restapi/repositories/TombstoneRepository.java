@@ -0,0 +1,22 @@
+package com.mchudzik.restapi.repositories;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.mchudzik.restapi.models.Tombstone;
+
+public interface TombstoneRepository extends JpaRepository<Tombstone, Tombstone.Key> {
+
+    @Query("select t.id.entityId from Tombstone t where t.id.type = :type and t.deletedAt >= :since order by t.id.entityId")
+    List<Long> findDeletedIds(Tombstone.Type type, Instant since);
+
+    @Modifying
+    @Transactional
+    @Query("delete from Tombstone t where t.deletedAt < :before")
+    int deleteDeletedBefore(Instant before);
+}
@@ -1,13 +1,25 @@
 package com.mchudzik.restapi.repositories;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
 import com.mchudzik.restapi.models.User;
+import com.mchudzik.restapi.models.VersionStamp;
 
-public interface UserRepository extends JpaRepository<User,Long>{
+public interface UserRepository extends JpaRepository<User,Long>, JpaSpecificationExecutor<User>, UserRepositoryCustom{
     
+    List<User> findAllByIdGreaterThan(Long id, Pageable pageable);
 
     List<User> findAllByNameContainingOrSurnameContainingAllIgnoreCase(String name, String surname);
+
+    @Query("select count(u) as count, max(u.id) as maxId, sum(u.version) as versionSum from User u")
+    VersionStamp findVersionStamp();
+
+    @Query("select u.id from User u where u.id in :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
 }
@@ -0,0 +1,19 @@
+package com.mchudzik.restapi.repositories;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.mchudzik.restapi.models.User;
+import com.mchudzik.restapi.models.UserFields;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * The requested fields of the users matching {@code spec}, reading only
+     * their columns.
+     */
+    List<UserFields> findFields(Specification<User> spec, Collection<String> fields, Pageable pageable);
+}
@@ -0,0 +1,32 @@
+package com.mchudzik.restapi.repositories;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mchudzik.restapi.models.User;
+import com.mchudzik.restapi.models.UserFields;
+
+import jakarta.persistence.EntityManager;
+
+class UserRepositoryImpl implements UserRepositoryCustom {
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    UserRepositoryImpl(EntityManager entityManager, ObjectMapper objectMapper)
+    {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<UserFields> findFields(Specification<User> spec, Collection<String> fields, Pageable pageable)
+    {
+        return FieldSelection.select(entityManager, objectMapper, User.class, spec, fields, pageable).stream()
+        .map(UserFields::new)
+        .toList();
+    }
+}
@@ -0,0 +1,33 @@
+package com.mchudzik.restapi.repositories;
+
+import java.time.Instant;
+import java.util.Collection;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.mchudzik.restapi.models.User;
+
+/**
+ * Predicates for {@link UserRepository#findAll(Specification, Sort)} and
+ * {@link UserRepository#findFields}.
+ */
+public final class UserSpecifications {
+
+    private UserSpecifications() {}
+
+    public static Specification<User> idGreaterThan(Long id)
+    {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), id);
+    }
+
+    public static Specification<User> idIn(Collection<Long> ids)
+    {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    public static Specification<User> modifiedSince(Instant since)
+    {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("lastModified"), since);
+    }
+}
@@ -0,0 +1,28 @@
+package com.mchudzik.restapi.search;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers index updates to the commit of the transaction that made them, so
+ * searches never return rows it may still roll back; outside a transaction
+ * they are applied at once.
+ */
+final class AfterCommit {
+    private AfterCommit() {}
+
+    static void run(Runnable update)
+    {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit()
+            {
+                update.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package com.mchudzik.restapi.search;
+
+import java.util.List;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.models.User;
+import com.mchudzik.restapi.repositories.TaskRepository;
+import com.mchudzik.restapi.repositories.UserRepository;
+
+/**
+ * Fills the search indexes from the database before the application takes
+ * requests; from then on the entity listeners keep them current. Filling
+ * them while requests are served could overwrite a listener's update with
+ * the row as it was when its chunk was read.
+ */
+@Component
+@Profile("!reactive")
+public class SearchIndexInitializer implements SmartInitializingSingleton {
+    private static final Pageable CHUNK = PageRequest.of(0, 1000, Sort.by("id"));
+
+    private final TaskRepository taskRepo;
+    private final UserRepository userRepo;
+    private final TaskSearchIndex taskIndex;
+    private final UserSearchIndex userIndex;
+
+    SearchIndexInitializer(TaskRepository taskRepo, UserRepository userRepo, TaskSearchIndex taskIndex, UserSearchIndex userIndex)
+    {
+        this.taskRepo = taskRepo;
+        this.userRepo = userRepo;
+        this.taskIndex = taskIndex;
+        this.userIndex = userIndex;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated()
+    {
+        rebuild();
+    }
+
+    public void rebuild()
+    {
+        taskIndex.clear();
+        userIndex.clear();
+
+        List<Task> tasks = taskRepo.findAllByIdGreaterThan(Long.MIN_VALUE, CHUNK);
+        while (!tasks.isEmpty()) {
+            tasks.forEach(taskIndex::index);
+            tasks = taskRepo.findAllByIdGreaterThan(tasks.get(tasks.size() - 1).getId(), CHUNK);
+        }
+
+        List<User> users = userRepo.findAllByIdGreaterThan(Long.MIN_VALUE, CHUNK);
+        while (!users.isEmpty()) {
+            users.forEach(userIndex::index);
+            users = userRepo.findAllByIdGreaterThan(users.get(users.size() - 1).getId(), CHUNK);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.mchudzik.restapi.search;
+
+import com.mchudzik.restapi.models.Task;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Keeps {@link TaskSearchIndex} current with the tasks written through JPA.
+ * The fields are read when the row is written and indexed once the
+ * transaction commits.
+ */
+public class TaskIndexListener {
+    private final TaskSearchIndex index;
+
+    public TaskIndexListener(TaskSearchIndex index)
+    {
+        this.index = index;
+    }
+
+    @PostPersist
+    @PostUpdate
+    void onSave(Task task)
+    {
+        Long id = task.getId();
+        String name = task.getName();
+        String desc = task.getDesc();
+        AfterCommit.run(() -> index.put(id, name, desc));
+    }
+
+    @PostRemove
+    void onDelete(Task task)
+    {
+        Long id = task.getId();
+        AfterCommit.run(() -> index.remove(id));
+    }
+}
@@ -0,0 +1,45 @@
+package com.mchudzik.restapi.search;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.mchudzik.restapi.models.Task;
+
+/**
+ * Text index over task name and description, kept current by {@link TaskIndexListener}.
+ */
+@Component
+public class TaskSearchIndex {
+    private final TrigramIndex index = new TrigramIndex();
+
+    public void index(Task task)
+    {
+        put(task.getId(), task.getName(), task.getDesc());
+    }
+
+    void put(Long id, String name, String desc)
+    {
+        index.put(id, name, desc);
+    }
+
+    public void remove(Task task)
+    {
+        remove(task.getId());
+    }
+
+    void remove(Long id)
+    {
+        index.remove(id);
+    }
+
+    public void clear()
+    {
+        index.clear();
+    }
+
+    public List<Long> search(String query)
+    {
+        return index.search(query);
+    }
+}
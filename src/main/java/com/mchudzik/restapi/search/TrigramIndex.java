@@ -0,0 +1,167 @@
+package com.mchudzik.restapi.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory trigram index answering case-insensitive "field contains" queries
+ * over a fixed number of text fields per document. Results are ranked so that
+ * matches in earlier fields come first, and within a field exact matches
+ * beat prefix matches which beat infix matches.
+ */
+public class TrigramIndex {
+    private static final int GRAM = 3;
+
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private final Map<Long, String[]> documents = new ConcurrentHashMap<>();
+
+    public synchronized void put(Long id, String... fields)
+    {
+        if (id == null) {
+            return;
+        }
+        String[] normalized = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            normalized[i] = normalize(fields[i]);
+        }
+
+        String[] previous = documents.put(id, normalized);
+        Set<String> oldGrams = previous == null ? Set.of() : trigrams(previous);
+        Set<String> newGrams = trigrams(normalized);
+
+        for (String gram : oldGrams) {
+            if (!newGrams.contains(gram)) {
+                unlink(gram, id);
+            }
+        }
+        for (String gram : newGrams) {
+            if (!oldGrams.contains(gram)) {
+                postings.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+    }
+
+    public synchronized void remove(Long id)
+    {
+        if (id == null) {
+            return;
+        }
+        String[] previous = documents.remove(id);
+        if (previous != null) {
+            for (String gram : trigrams(previous)) {
+                unlink(gram, id);
+            }
+        }
+    }
+
+    public synchronized void clear()
+    {
+        documents.clear();
+        postings.clear();
+    }
+
+    public int size()
+    {
+        return documents.size();
+    }
+
+    public List<Long> search(String query)
+    {
+        String needle = normalize(query);
+        if (needle == null) {
+            return List.of();
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (Long id : candidates(needle)) {
+            String[] fields = documents.get(id);
+            if (fields != null) {
+                int rank = rank(fields, needle);
+                if (rank >= 0) {
+                    hits.add(new Hit(id, rank));
+                }
+            }
+        }
+
+        hits.sort(Comparator.comparingInt(Hit::rank).thenComparing(Hit::id));
+        return hits.stream().map(Hit::id).toList();
+    }
+
+    private Set<Long> candidates(String needle)
+    {
+        if (needle.length() < GRAM) {
+            return documents.keySet();
+        }
+
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : trigrams(needle)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return Set.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private static int rank(String[] fields, String needle)
+    {
+        for (int i = 0; i < fields.length; i++) {
+            String field = fields[i];
+            if (field == null) {
+                continue;
+            }
+            if (field.equals(needle)) {
+                return i * 3;
+            }
+            if (field.startsWith(needle)) {
+                return i * 3 + 1;
+            }
+            if (field.contains(needle)) {
+                return i * 3 + 2;
+            }
+        }
+        return -1;
+    }
+
+    private void unlink(String gram, Long id)
+    {
+        postings.computeIfPresent(gram, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static Set<String> trigrams(String... fields)
+    {
+        Set<String> grams = new HashSet<>();
+        for (String field : fields) {
+            if (field == null) {
+                continue;
+            }
+            for (int i = 0; i + GRAM <= field.length(); i++) {
+                grams.add(field.substring(i, i + GRAM));
+            }
+        }
+        return grams;
+    }
+
+    private static String normalize(String text)
+    {
+        return text == null ? null : text.toLowerCase(Locale.ROOT);
+    }
+
+    private record Hit(Long id, int rank) {}
+}
@@ -0,0 +1,38 @@
+package com.mchudzik.restapi.search;
+
+import com.mchudzik.restapi.models.User;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Keeps {@link UserSearchIndex} current with the users written through JPA.
+ * The fields are read when the row is written and indexed once the
+ * transaction commits.
+ */
+public class UserIndexListener {
+    private final UserSearchIndex index;
+
+    public UserIndexListener(UserSearchIndex index)
+    {
+        this.index = index;
+    }
+
+    @PostPersist
+    @PostUpdate
+    void onSave(User user)
+    {
+        Long id = user.getId();
+        String name = user.getName();
+        String surname = user.getSurname();
+        AfterCommit.run(() -> index.put(id, name, surname));
+    }
+
+    @PostRemove
+    void onDelete(User user)
+    {
+        Long id = user.getId();
+        AfterCommit.run(() -> index.remove(id));
+    }
+}
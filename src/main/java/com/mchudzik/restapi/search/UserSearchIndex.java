@@ -0,0 +1,45 @@
+package com.mchudzik.restapi.search;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.mchudzik.restapi.models.User;
+
+/**
+ * Text index over user name and surname, kept current by {@link UserIndexListener}.
+ */
+@Component
+public class UserSearchIndex {
+    private final TrigramIndex index = new TrigramIndex();
+
+    public void index(User user)
+    {
+        put(user.getId(), user.getName(), user.getSurname());
+    }
+
+    void put(Long id, String name, String surname)
+    {
+        index.put(id, name, surname);
+    }
+
+    public void remove(User user)
+    {
+        remove(user.getId());
+    }
+
+    void remove(Long id)
+    {
+        index.remove(id);
+    }
+
+    public void clear()
+    {
+        index.clear();
+    }
+
+    public List<Long> search(String query)
+    {
+        return index.search(query);
+    }
+}
@@ -0,0 +1,209 @@
+package com.mchudzik.restapi.snapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Online snapshots of a file-backed H2 database and the restore path used on
+ * startup. {@link Format#BACKUP} copies the MVStore file into a zip, which
+ * restores by unzipping it; {@link Format#SCRIPT} writes gzipped SQL, which
+ * is portable between H2 versions but has to be replayed. Both run while the
+ * database is in use.
+ */
+public class H2Snapshots implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(H2Snapshots.class);
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    public enum Format {
+        BACKUP(".zip"),
+        SCRIPT(".sql.gz");
+
+        private final String extension;
+
+        Format(String extension)
+        {
+            this.extension = extension;
+        }
+    }
+
+    private final Path directory;
+    private final Path snapshotDirectory;
+    private final String database;
+    private final Format format;
+    private final int retain;
+    private ScheduledExecutorService scheduler;
+
+    public H2Snapshots(Path directory, String database, Format format, int retain)
+    {
+        this.directory = directory.toAbsolutePath();
+        this.snapshotDirectory = this.directory.resolve("snapshots");
+        this.database = database;
+        this.format = format;
+        this.retain = Math.max(1, retain);
+    }
+
+    /**
+     * Takes a snapshot through {@code dataSource}. The file is written under a
+     * temporary name and renamed, so a crash never leaves a partial snapshot
+     * behind as the newest one. Only the newest {@code retain} are kept.
+     */
+    public synchronized Path snapshot(DataSource dataSource)
+    {
+        try {
+            Files.createDirectories(snapshotDirectory);
+            Path target = snapshotDirectory.resolve(database + "-" + LocalDateTime.now().format(TIMESTAMP) + format.extension);
+            Path partial = snapshotDirectory.resolve(target.getFileName() + ".partial");
+            long start = System.nanoTime();
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute(switch (format) {
+                    case BACKUP -> "BACKUP TO '" + partial + "'";
+                    case SCRIPT -> "SCRIPT TO '" + partial + "' COMPRESSION GZIP";
+                });
+            }
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Wrote snapshot {} ({} bytes) in {} ms", target.getFileName(), Files.size(target), Duration.ofNanos(System.nanoTime() - start).toMillis());
+
+            List<Path> snapshots = list();
+            for (Path old : snapshots.subList(0, Math.max(0, snapshots.size() - retain))) {
+                Files.deleteIfExists(old);
+            }
+            return target;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Snapshot of " + database + " failed", e);
+        }
+    }
+
+    public Optional<Path> latest()
+    {
+        List<Path> snapshots = list();
+        return snapshots.isEmpty() ? Optional.empty() : Optional.of(snapshots.get(snapshots.size() - 1));
+    }
+
+    /**
+     * Restores the newest snapshot if the database file does not exist yet.
+     * Has to run before the first connection is opened, as that would create
+     * an empty database in its place.
+     */
+    public boolean restoreIfMissing(String url, String username, String password)
+    {
+        if (Files.exists(directory.resolve(database + ".mv.db"))) {
+            return false;
+        }
+        Optional<Path> snapshot = latest();
+        if (snapshot.isEmpty()) {
+            return false;
+        }
+        restore(snapshot.get(), url, username, password);
+        return true;
+    }
+
+    public void restore(Path snapshot, String url, String username, String password)
+    {
+        long start = System.nanoTime();
+        String name = snapshot.getFileName().toString();
+        if (name.endsWith(Format.BACKUP.extension)) {
+            unzip(snapshot);
+        } else if (name.endsWith(Format.SCRIPT.extension)) {
+            try (Connection connection = DriverManager.getConnection(url, username, password); Statement statement = connection.createStatement()) {
+                statement.execute("RUNSCRIPT FROM '" + snapshot.toAbsolutePath() + "' COMPRESSION GZIP");
+            } catch (SQLException e) {
+                throw new IllegalStateException("Restoring " + name + " failed", e);
+            }
+        } else {
+            throw new IllegalArgumentException("Not a snapshot: " + snapshot);
+        }
+        log.info("Restored {} from {} in {} ms", database, name, Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    /**
+     * Snapshots every {@code interval} on a background thread; a zero or
+     * negative interval disables periodic snapshots.
+     */
+    public synchronized void schedule(DataSource dataSource, Duration interval)
+    {
+        if (interval.isZero() || interval.isNegative() || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "h2-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot(dataSource);
+            } catch (RuntimeException e) {
+                log.warn("Periodic snapshot failed", e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void unzip(Path snapshot)
+    {
+        try (InputStream in = Files.newInputStream(snapshot); ZipInputStream zip = new ZipInputStream(in)) {
+            Files.createDirectories(directory);
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                Path target = directory.resolve(entry.getName()).normalize();
+                if (!target.startsWith(directory)) {
+                    throw new IOException("Entry " + entry.getName() + " escapes " + directory);
+                }
+                Files.copy(zip, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Path> list()
+    {
+        if (!Files.isDirectory(snapshotDirectory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(snapshotDirectory)) {
+            return files
+            .filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(database + "-") && (name.endsWith(Format.BACKUP.extension) || name.endsWith(Format.SCRIPT.extension));
+            })
+            .sorted(Comparator.comparing(file -> file.getFileName().toString()))
+            .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.mchudzik.restapi.stats;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.mchudzik.restapi.changes.TaskChange;
+import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.models.FinishDateCount;
+import com.mchudzik.restapi.models.StatusCount;
+import com.mchudzik.restapi.models.TaskStats;
+import com.mchudzik.restapi.models.UserTaskCount;
+import com.mchudzik.restapi.repositories.TaskRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Task counters per status, per assigned user and past their finish date,
+ * kept in memory so {@link #stats()} does not touch the database. The
+ * counters follow the {@link TaskChange} events of committed changes, each
+ * of which carries the state it replaced, so nothing is kept per task: only
+ * the counts per status and per user, and the open tasks per finish date,
+ * from which the overdue count rolls forward at midnight. Memory grows with
+ * the number of users and distinct finish dates, not with the tasks.
+ * <p>
+ * The counters are loaded with {@code COUNT ... GROUP BY} queries before
+ * the application takes requests. Every
+ * {@code tasks.stats.reconcile-interval} they are compared with the same
+ * queries, which catch changes counted twice or made past the controllers.
+ * A change committed while the queries run shows up as a difference too, so
+ * the comparison is made twice and the counters are corrected only by a
+ * difference both comparisons find. As the counters are all the state
+ * there is, a correction leaves nothing stale for later changes to build on.
+ */
+@Component
+@Profile("!reactive")
+public class TaskStatistics implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(TaskStatistics.class);
+
+    private static final Set<Status> OPEN = EnumSet.of(Status.NEW, Status.IN_PROGRESS, Status.IN_VERIFICATION);
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-stats-reconcile");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final TaskRepository repo;
+
+    private final long[] byStatus = new long[Status.values().length];
+    private final Map<Long, Long> byUser = new HashMap<>();
+    private final NavigableMap<LocalDate, Long> openByFinishDate = new TreeMap<>();
+    private LocalDate today = LocalDate.now();
+    private long total;
+    private long overdue;
+
+    TaskStatistics(TaskRepository repo, @Value("${tasks.stats.reconcile-interval:10m}") Duration reconcileInterval)
+    {
+        this.repo = repo;
+        scheduler.scheduleWithFixedDelay(this::reconcile, reconcileInterval.toMillis(), reconcileInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized TaskStats stats()
+    {
+        rollOver();
+        Map<Status, Long> statuses = new EnumMap<>(Status.class);
+        for (Status status : Status.values()) {
+            statuses.put(status, byStatus[status.ordinal()]);
+        }
+        return new TaskStats(total, statuses, new TreeMap<>(byUser), overdue);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    synchronized void onChange(TaskChange change)
+    {
+        switch (change.type()) {
+            case CREATED -> {
+                total++;
+                count(change.status(), change.finishDate(), 1);
+                countUsers(change.userIds(), 1);
+            }
+            case UPDATED -> {
+                if (change.previous() != null) {
+                    count(change.previous().status(), change.previous().finishDate(), -1);
+                    count(change.status(), change.finishDate(), 1);
+                }
+            }
+            case STATUS_CHANGED -> {
+                if (change.previous() != null) {
+                    count(change.previous().status(), change.previous().finishDate(), -1);
+                    count(change.status(), change.previous().finishDate(), 1);
+                }
+            }
+            case ASSIGNED -> countUsers(change.userIds(), 1);
+            case UNASSIGNED -> countUsers(change.userIds(), -1);
+            case DELETED -> {
+                if (change.previous() != null) {
+                    total--;
+                    count(change.previous().status(), change.previous().finishDate(), -1);
+                    countUsers(change.previous().userIds(), -1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the counters before the application takes requests, so no
+     * change can be both counted by the queries and applied on top of them.
+     */
+    @Override
+    public void afterSingletonsInstantiated()
+    {
+        rebuild();
+    }
+
+    public void rebuild()
+    {
+        Counts counted = count();
+        synchronized (this) {
+            Arrays.fill(byStatus, 0);
+            byUser.clear();
+            openByFinishDate.clear();
+            total = 0;
+            correct(counted);
+        }
+    }
+
+    /**
+     * Compares the counters with the database twice and corrects them by the
+     * difference if both comparisons find the same one.
+     */
+    public void reconcile()
+    {
+        try {
+            Counts drift = null;
+            for (int attempt = 0; attempt < 2; attempt++) {
+                Counts difference = count().minus(kept());
+                if (difference.isZero()) {
+                    return;
+                }
+                if (difference.equals(drift)) {
+                    log.warn("Task counters differ from the database by {}, correcting", difference);
+                    synchronized (this) {
+                        correct(difference);
+                    }
+                    return;
+                }
+                drift = difference;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Reconciling task counters failed, retrying with the next reconciliation", e);
+        }
+    }
+
+    private synchronized Counts kept()
+    {
+        Map<Status, Long> statuses = new EnumMap<>(Status.class);
+        for (Status status : Status.values()) {
+            statuses.put(status, byStatus[status.ordinal()]);
+        }
+        return new Counts(total, statuses, new TreeMap<>(byUser), new TreeMap<>(openByFinishDate));
+    }
+
+    /**
+     * Adds {@code difference} to the counters and counts the overdue tasks
+     * anew from the corrected finish dates.
+     */
+    private void correct(Counts difference)
+    {
+        total += difference.total();
+        difference.byStatus().forEach((status, count) -> byStatus[status.ordinal()] += count);
+        difference.byUser().forEach((userId, count) -> byUser.compute(userId, (key, sum) -> add(sum, count)));
+        difference.openByFinishDate().forEach((date, count) -> openByFinishDate.compute(date, (key, sum) -> add(sum, count)));
+        today = LocalDate.now();
+        overdue = openByFinishDate.headMap(today, false).values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private Counts count()
+    {
+        Map<Status, Long> statuses = new EnumMap<>(Status.class);
+        for (Status status : Status.values()) {
+            statuses.put(status, 0L);
+        }
+        long total = 0;
+        for (StatusCount count : repo.countByStatus()) {
+            total += count.count();
+            if (count.status() != null) {
+                statuses.put(count.status(), count.count());
+            }
+        }
+        Map<Long, Long> users = repo.countByUser().stream()
+        .collect(Collectors.toMap(UserTaskCount::userId, UserTaskCount::count, Long::sum, TreeMap::new));
+        Map<LocalDate, Long> dates = repo.countByFinishDateAndStatusIn(OPEN).stream()
+        .collect(Collectors.toMap(FinishDateCount::finishDate, FinishDateCount::count, Long::sum, TreeMap::new));
+        return new Counts(total, statuses, users, dates);
+    }
+
+    private void count(Status status, LocalDate finishDate, long delta)
+    {
+        rollOver();
+        if (status == null) {
+            return;
+        }
+        byStatus[status.ordinal()] += delta;
+        if (OPEN.contains(status) && finishDate != null) {
+            openByFinishDate.compute(finishDate, (key, count) -> add(count, delta));
+            if (finishDate.isBefore(today)) {
+                overdue += delta;
+            }
+        }
+    }
+
+    private void countUsers(Collection<Long> userIds, long delta)
+    {
+        if (userIds != null) {
+            userIds.forEach(userId -> byUser.compute(userId, (key, count) -> add(count, delta)));
+        }
+    }
+
+    /**
+     * {@code count} plus {@code delta}, or null to drop the entry at zero.
+     */
+    private static Long add(Long count, long delta)
+    {
+        long sum = count == null ? delta : count + delta;
+        return sum == 0 ? null : sum;
+    }
+
+    /**
+     * Counts the open tasks that have become overdue since the last call.
+     */
+    private void rollOver()
+    {
+        LocalDate now = LocalDate.now();
+        if (now.isAfter(today)) {
+            overdue += openByFinishDate.subMap(today, true, now, false).values().stream().mapToLong(Long::longValue).sum();
+            today = now;
+        }
+    }
+
+    @PreDestroy
+    void shutdown()
+    {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * All the counters, or the difference between two sets of them.
+     */
+    private record Counts(long total, Map<Status, Long> byStatus, Map<Long, Long> byUser, Map<LocalDate, Long> openByFinishDate) {
+
+        Counts minus(Counts other)
+        {
+            Map<Status, Long> statuses = new EnumMap<>(Status.class);
+            for (Status status : Status.values()) {
+                statuses.put(status, this.byStatus.get(status) - other.byStatus.get(status));
+            }
+            return new Counts(this.total - other.total, statuses, minus(this.byUser, other.byUser), minus(this.openByFinishDate, other.openByFinishDate));
+        }
+
+        private static <K> Map<K, Long> minus(Map<K, Long> counts, Map<K, Long> others)
+        {
+            Map<K, Long> difference = new TreeMap<>(counts);
+            others.forEach((key, count) -> difference.compute(key, (k, sum) -> add(sum, -count)));
+            return difference;
+        }
+
+        boolean isZero()
+        {
+            return this.total == 0 && this.byUser.isEmpty() && this.openByFinishDate.isEmpty()
+                && this.byStatus.values().stream().allMatch(count -> count == 0);
+        }
+    }
+}
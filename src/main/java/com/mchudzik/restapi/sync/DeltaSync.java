@@ -0,0 +1,105 @@
+package com.mchudzik.restapi.sync;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.mchudzik.restapi.exceptions.SyncExpiredException;
+import com.mchudzik.restapi.models.Tombstone;
+import com.mchudzik.restapi.repositories.TombstoneRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bookkeeping for {@code modifiedSince} requests. Tasks and users carry the
+ * time of their last change in the indexed {@code lastModified} column;
+ * deletions leave a {@link Tombstone}, written in the transaction of the
+ * delete and kept for {@code sync.tombstone-retention}. Syncing from
+ * further back is refused, as deletions may be missing by then.
+ * <p>
+ * A row carries the time it was written, which may be long before its
+ * transaction commits. The point a client syncs from next therefore lies
+ * before the first write of the oldest transaction still open, see
+ * {@link OpenWrites}, and {@code sync.clock-skew} before that or the start
+ * of the request. Every row stamped before it has committed by the time the
+ * request reads, so no change is skipped, and only the changes of the last
+ * moments, or of a long transaction, are sent twice. Writes on other
+ * instances are covered by the skew alone.
+ */
+@Component
+@Profile("!reactive")
+public class DeltaSync {
+    private static final Logger log = LoggerFactory.getLogger(DeltaSync.class);
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tombstone-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final TombstoneRepository repo;
+    private final Duration retention;
+    private final Duration clockSkew;
+
+    DeltaSync(TombstoneRepository repo,
+        @Value("${sync.tombstone-retention:30d}") Duration retention,
+        @Value("${sync.clock-skew:1s}") Duration clockSkew,
+        @Value("${sync.purge-interval:1h}") Duration purgeInterval)
+    {
+        this.repo = repo;
+        this.retention = retention;
+        this.clockSkew = clockSkew;
+        scheduler.scheduleWithFixedDelay(this::purge, purgeInterval.toMillis(), purgeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The point to sync from next; to be taken before reading the changes.
+     */
+    public Instant nextSyncPoint()
+    {
+        return OpenWrites.oldest(Instant.now()).minus(clockSkew);
+    }
+
+    /**
+     * Ids of the entities of {@code type} deleted at or after {@code since}.
+     */
+    public List<Long> deletedSince(Tombstone.Type type, Instant since)
+    {
+        Instant horizon = Instant.now().minus(retention);
+        if (since.isBefore(horizon)) {
+            throw new SyncExpiredException(since, horizon);
+        }
+        return repo.findDeletedIds(type, since);
+    }
+
+    public void recordDeletion(Tombstone.Type type, Long id)
+    {
+        repo.save(new Tombstone(type, id, OpenWrites.stamp()));
+    }
+
+    public void purge()
+    {
+        try {
+            int purged = repo.deleteDeletedBefore(Instant.now().minus(retention));
+            if (purged > 0) {
+                log.info("Purged {} tombstones older than {}", purged, retention);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Purging tombstones failed, retrying with the next purge", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown()
+    {
+        scheduler.shutdownNow();
+    }
+}
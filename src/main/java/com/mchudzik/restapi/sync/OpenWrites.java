@@ -0,0 +1,84 @@
+package com.mchudzik.restapi.sync;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The writing transactions of this instance that have not completed yet,
+ * each with the time it first stamped a task, user or tombstone. A row's
+ * {@code lastModified} is the time of its write, not of its commit, so a
+ * row may become visible long after the time it carries; as long as its
+ * transaction is open, {@link #oldest} lies at or before that time.
+ * <p>
+ * Tracking takes no lock: stamping costs a map insert per transaction.
+ * A write made without Spring transaction synchronization, for instance
+ * through a plain {@code EntityManager} in auto-commit, is stamped but not
+ * tracked; it commits with its statement, so there is nothing to wait for.
+ */
+public final class OpenWrites {
+    private static final Map<Writes, Instant> open = new ConcurrentHashMap<>();
+
+    private OpenWrites() {}
+
+    /**
+     * The time to stamp a row written now with.
+     */
+    public static Instant stamp()
+    {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        if (TransactionSynchronizationManager.getResource(OpenWrites.class) == null
+            && TransactionSynchronizationManager.isSynchronizationActive()) {
+            Writes writes = new Writes();
+            open.put(writes, now);
+            TransactionSynchronizationManager.bindResource(OpenWrites.class, writes);
+            TransactionSynchronizationManager.registerSynchronization(writes);
+        }
+        return now;
+    }
+
+    /**
+     * The first stamp of the oldest open transaction, or {@code now} if none
+     * is open.
+     */
+    public static Instant oldest(Instant now)
+    {
+        Instant oldest = now;
+        for (Instant stamped : open.values()) {
+            if (stamped.isBefore(oldest)) {
+                oldest = stamped;
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * Keeps a transaction open until it completes, and out of the way of a
+     * nested transaction that runs while it is suspended.
+     */
+    private static final class Writes implements TransactionSynchronization {
+
+        @Override
+        public void suspend()
+        {
+            TransactionSynchronizationManager.unbindResource(OpenWrites.class);
+        }
+
+        @Override
+        public void resume()
+        {
+            TransactionSynchronizationManager.bindResource(OpenWrites.class, this);
+        }
+
+        @Override
+        public void afterCompletion(int status)
+        {
+            TransactionSynchronizationManager.unbindResourceIfPossible(OpenWrites.class);
+            open.remove(this);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.mchudzik.restapi.throttle;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limit on the cost of the requests in flight, adapted to latency after
+ * the gradient scheme of Netflix' concurrency-limits: the limit grows
+ * while the short-term latency per cost unit stays near its long-term
+ * average, and shrinks as soon as the short-term latency rises above it,
+ * that is as soon as requests start to queue for threads or connections,
+ * well before latency collapses. Requests costing more than one unit may
+ * take up to {@code 1 - reserve} of the limit; cheap ones may take what
+ * expensive ones leave, and never less than {@code reserve}, so a burst of
+ * expensive requests cannot crowd them out.
+ * <p>
+ * Admission is a compare-and-set on the in-flight cost of its kind. Latency samples
+ * are folded in by one thread at a time; a sample arriving while another
+ * is folded in is dropped rather than waited for.
+ */
+final class ConcurrencyLimit {
+    private static final double SHORT_ALPHA = 0.1;
+    private static final double LONG_ALPHA = 2.0 / 601;
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+
+    private final AtomicInteger cheapInFlight = new AtomicInteger();
+    private final AtomicInteger expensiveInFlight = new AtomicInteger();
+    private final AtomicBoolean sampling = new AtomicBoolean();
+    private final int minLimit;
+    private final int maxLimit;
+    private final double reserve;
+    private volatile double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    ConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double reserve)
+    {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit || reserve < 0 || reserve >= 1) {
+            throw new IllegalArgumentException("Concurrency limits need 1 <= min <= initial <= max and 0 <= reserve < 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.reserve = reserve;
+        this.limit = initialLimit;
+    }
+
+    int limit()
+    {
+        return (int) limit;
+    }
+
+    int inFlight()
+    {
+        return cheapInFlight.get() + expensiveInFlight.get();
+    }
+
+    /**
+     * Lets in a request of {@code cost} if the limit leaves room for it. An
+     * expensive request is always let in while no other is in flight.
+     */
+    boolean tryAcquire(int cost)
+    {
+        double current = limit;
+        int expensiveCeiling = (int) (current * (1 - reserve));
+        if (cost > 1) {
+            return take(expensiveInFlight, cost, expensiveCeiling, true);
+        }
+        return take(cheapInFlight, cost, (int) current - Math.min(expensiveInFlight.get(), expensiveCeiling), false);
+    }
+
+    private static boolean take(AtomicInteger inFlight, int cost, int ceiling, boolean atLeastOne)
+    {
+        while (true) {
+            int taken = inFlight.get();
+            if (taken + cost > ceiling && !(atLeastOne && taken == 0)) {
+                return false;
+            }
+            if (inFlight.compareAndSet(taken, taken + cost)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Ends a request let in by {@link #tryAcquire}, adapting the limit to
+     * the {@code nanos} it took per unit of its {@code cost} unless that is
+     * not a latency worth learning from, as for requests that went
+     * asynchronous.
+     */
+    void release(int cost, long nanos, boolean sample)
+    {
+        int taken = inFlight();
+        (cost > 1 ? expensiveInFlight : cheapInFlight).addAndGet(-cost);
+        if (sample && sampling.compareAndSet(false, true)) {
+            try {
+                adapt((double) nanos / cost, taken);
+            } finally {
+                sampling.set(false);
+            }
+        }
+    }
+
+    private void adapt(double rtt, int taken)
+    {
+        if (longRtt == 0) {
+            shortRtt = rtt;
+            longRtt = rtt;
+            return;
+        }
+        shortRtt += (rtt - shortRtt) * SHORT_ALPHA;
+        longRtt += (rtt - longRtt) * LONG_ALPHA;
+        if (longRtt > 2 * shortRtt) {
+            longRtt *= 0.95;
+        }
+        double current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        if (gradient == 1.0 && taken < current / 2) {
+            return;
+        }
+        double target = current * gradient + Math.sqrt(current);
+        limit = Math.max(minLimit, Math.min(maxLimit, current * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+}
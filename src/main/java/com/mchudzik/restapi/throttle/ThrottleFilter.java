@@ -0,0 +1,159 @@
+package com.mchudzik.restapi.throttle;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Turns requests away before they queue up behind expensive ones. Each
+ * request costs the units configured for its route, whatever its
+ * parameters, and has to pass three checks in turn:
+ * <ul>
+ * <li>its client's token bucket, failing with 429,</li>
+ * <li>its route's token bucket, shared by all clients, failing with 503,</li>
+ * <li>the adaptive {@link ConcurrencyLimit}, failing with 503.</li>
+ * </ul>
+ * Rejections carry {@code Retry-After}. Clients are told apart by
+ * {@code throttle.client-header} when set and sent, by address otherwise.
+ * A client's bucket is dropped once the client has been quiet long enough
+ * for it to refill, and the least recently used ones once more than
+ * {@code throttle.max-clients} are kept.
+ */
+public class ThrottleFilter extends OncePerRequestFilter {
+    private static final String OTHER_ROUTE = "other";
+    private static final String REJECTED_METRIC = "throttle.rejected";
+
+    private final Cache<String, TokenBucket> clients;
+    private final List<Route> routes = new ArrayList<>();
+    private final Route otherRoute;
+    private final ThrottleProperties properties;
+    private final ConcurrencyLimit concurrency;
+    private final MeterRegistry meterRegistry;
+
+    public ThrottleFilter(ThrottleProperties properties, MeterRegistry meterRegistry)
+    {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        long now = System.nanoTime();
+        int clientBurst = properties.client().burst();
+        int routeBurst = properties.route().burst();
+        this.clients = Caffeine.newBuilder()
+        .maximumSize(properties.maxClients())
+        .expireAfterAccess(Duration.ofNanos((long) (TimeUnit.SECONDS.toNanos(clientBurst) / properties.client().rate())))
+        .build();
+        if (properties.costs() != null) {
+            properties.costs().forEach((method, patterns) -> patterns.forEach((pattern, cost) -> {
+                String key = method.toUpperCase() + " " + pattern;
+                if (cost < 1 || cost > clientBurst || cost > routeBurst) {
+                    throw new IllegalArgumentException("Cost of " + key + " must lie between 1 and the client and route bursts, got " + cost);
+                }
+                routes.add(new Route(key, method, PathPatternParser.defaultInstance.parse(pattern), cost,
+                    new TokenBucket(properties.route().rate(), routeBurst, now)));
+            }));
+        }
+        routes.sort(Comparator.comparing(Route::pattern, PathPattern.SPECIFICITY_COMPARATOR));
+        this.otherRoute = new Route(OTHER_ROUTE, null, null, properties.defaultCost(), new TokenBucket(properties.route().rate(), routeBurst, now));
+        ThrottleProperties.Concurrency limits = properties.concurrency();
+        this.concurrency = new ConcurrencyLimit(limits.initialLimit(), limits.minLimit(), limits.maxLimit(), limits.reserve());
+
+        Gauge.builder("throttle.concurrency.limit", concurrency, ConcurrencyLimit::limit)
+        .description("Cost of the requests allowed in flight at once")
+        .register(meterRegistry);
+        Gauge.builder("throttle.concurrency.in-flight", concurrency, ConcurrencyLimit::inFlight)
+        .description("Cost of the requests in flight")
+        .register(meterRegistry);
+        Gauge.builder("throttle.clients", clients, Cache::estimatedSize)
+        .description("Clients with a token bucket that may be partly drained")
+        .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request)
+    {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException
+    {
+        Route route = routeOf(request);
+        int cost = route.cost();
+        long now = System.nanoTime();
+
+        TokenBucket client = clients.get(clientOf(request),
+            key -> new TokenBucket(properties.client().rate(), properties.client().burst(), now));
+        long wait = client.tryTake(cost, now);
+        if (wait > 0) {
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, wait, "client", route);
+            return;
+        }
+        wait = route.bucket().tryTake(cost, now);
+        if (wait > 0) {
+            client.refund(cost);
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, wait, "route", route);
+            return;
+        }
+        if (!concurrency.tryAcquire(cost)) {
+            client.refund(cost);
+            route.bucket().refund(cost);
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 0, "concurrency", route);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            concurrency.release(cost, System.nanoTime() - now, !request.isAsyncStarted());
+        }
+    }
+
+    private Route routeOf(HttpServletRequest request)
+    {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        for (Route route : routes) {
+            if (route.method().equalsIgnoreCase(request.getMethod()) && route.pattern().matches(path)) {
+                return route;
+            }
+        }
+        return otherRoute;
+    }
+
+    private String clientOf(HttpServletRequest request)
+    {
+        String header = properties.clientHeader();
+        String client = header == null || header.isBlank() ? null : request.getHeader(header);
+        return client != null ? client : request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, long waitNanos, String reason, Route route) throws IOException
+    {
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        meterRegistry.counter(REJECTED_METRIC, "reason", reason, "route", route.key()).increment();
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Request rejected by " + reason + " limit, retry after " + retryAfter + "s");
+    }
+
+    private record Route(String key, String method, PathPattern pattern, int cost, TokenBucket bucket) {}
+}
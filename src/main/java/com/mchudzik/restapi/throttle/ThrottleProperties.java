@@ -0,0 +1,29 @@
+package com.mchudzik.restapi.throttle;
+
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of {@link ThrottleFilter}. Rates and bursts are in cost units;
+ * {@code costs} maps HTTP methods and path patterns to the units a request
+ * on them costs, as in {@code throttle.costs.get[/tasks/byName]=20};
+ * {@code defaultCost} is charged for the rest. At most {@code maxClients}
+ * client buckets are kept.
+ */
+@ConfigurationProperties("throttle")
+public record ThrottleProperties(
+    String clientHeader,
+    @DefaultValue("100000") int maxClients,
+    @DefaultValue Bucket client,
+    @DefaultValue Bucket route,
+    @DefaultValue("1") int defaultCost,
+    Map<String, Map<String, Integer>> costs,
+    @DefaultValue Concurrency concurrency) {
+
+    public record Bucket(@DefaultValue("100") double rate, @DefaultValue("200") int burst) {}
+
+    public record Concurrency(@DefaultValue("20") int initialLimit, @DefaultValue("4") int minLimit,
+        @DefaultValue("200") int maxLimit, @DefaultValue("0.25") double reserve) {}
+}
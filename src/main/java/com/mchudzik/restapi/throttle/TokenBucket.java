@@ -0,0 +1,59 @@
+package com.mchudzik.restapi.throttle;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket refilled at {@code rate} tokens a second up to
+ * {@code burst} tokens. Kept as the single time at which the bucket would
+ * be full again, the generic cell rate algorithm, so taking tokens is one
+ * compare-and-set and needs no refill thread.
+ */
+final class TokenBucket {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(double rate, int burst, long now)
+    {
+        if (rate <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Token bucket needs a positive rate and burst, got " + rate + "/s and " + burst);
+        }
+        this.nanosPerToken = Math.max(1, (long) (NANOS_PER_SECOND / rate));
+        this.burstNanos = nanosPerToken * burst;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    int capacity()
+    {
+        return (int) (burstNanos / nanosPerToken);
+    }
+
+    /**
+     * Takes {@code tokens} if the bucket holds them. Returns 0 if it did,
+     * otherwise the nanoseconds until it will.
+     */
+    long tryTake(int tokens, long now)
+    {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + tokens * nanosPerToken;
+            long excess = next - now - burstNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Puts back tokens taken for a request that was turned away further on.
+     */
+    void refund(int tokens)
+    {
+        fullAt.addAndGet(-tokens * nanosPerToken);
+    }
+}
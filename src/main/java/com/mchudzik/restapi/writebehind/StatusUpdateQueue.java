@@ -0,0 +1,178 @@
+package com.mchudzik.restapi.writebehind;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mchudzik.restapi.changes.TaskChange;
+import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.models.TaskVersion;
+import com.mchudzik.restapi.repositories.TaskRepository;
+import com.mchudzik.restapi.sync.OpenWrites;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind buffer for task status changes. Submitted statuses are
+ * coalesced per task id, the last one winning, and written every
+ * {@code tasks.status-write-behind.flush-interval} or as soon as
+ * {@code tasks.status-write-behind.max-batch-size} tasks are pending. A flush
+ * issues one {@code UPDATE ... WHERE id IN} per status and chunk of ids in a
+ * single transaction, so thousands of changes cost a handful of statements
+ * and one pooled connection. The rows are locked first; unknown task ids are
+ * dropped there, and every written change is published as a
+ * {@link TaskChange}.
+ * <p>
+ * Writes that set a task's status synchronously call {@link #discard} before
+ * they save, so a change still pending, or drained by a flush that has not
+ * locked the row yet, cannot overwrite theirs.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "tasks.status-write-behind.enabled", havingValue = "true")
+public class StatusUpdateQueue {
+    private static final Logger log = LoggerFactory.getLogger(StatusUpdateQueue.class);
+
+    private static final int UPDATE_CHUNK_SIZE = 1000;
+
+    private final Map<Long, Status> pending = new ConcurrentHashMap<>();
+    private final Set<Long> discarded = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "status-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final TaskRepository repo;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher events;
+    private final int maxBatchSize;
+    private final Timer flushTimer;
+    private final Counter writtenCounter;
+
+    StatusUpdateQueue(TaskRepository repo, PlatformTransactionManager transactionManager, ApplicationEventPublisher events, MeterRegistry meterRegistry,
+        @Value("${tasks.status-write-behind.flush-interval:100ms}") Duration flushInterval,
+        @Value("${tasks.status-write-behind.max-batch-size:5000}") int maxBatchSize)
+    {
+        this.repo = repo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.events = events;
+        this.maxBatchSize = maxBatchSize;
+        Gauge.builder("tasks.status.write-behind.queue.depth", pending, Map::size)
+        .description("Tasks with a status change waiting to be written")
+        .register(meterRegistry);
+        this.flushTimer = Timer.builder("tasks.status.write-behind.flush")
+        .description("Time taken to write one batch of status changes")
+        .register(meterRegistry);
+        this.writtenCounter = Counter.builder("tasks.status.write-behind.written")
+        .description("Status changes written after coalescing")
+        .register(meterRegistry);
+        scheduler.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void submit(Long taskId, Status status)
+    {
+        pending.put(taskId, status);
+        if (pending.size() >= maxBatchSize && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flush);
+        }
+    }
+
+    /**
+     * Drops the change pending for {@code taskId}, including one the running
+     * flush has drained but not written yet.
+     */
+    public void discard(Long taskId)
+    {
+        pending.remove(taskId);
+        discarded.add(taskId);
+    }
+
+    public int depth()
+    {
+        return pending.size();
+    }
+
+    /**
+     * Writes everything pending. Only ever runs on the scheduler thread, or on
+     * the caller once the scheduler has stopped, so flushes never overlap.
+     */
+    public void flush()
+    {
+        flushRequested.set(false);
+        discarded.clear();
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<Status, List<Long>> byStatus = new EnumMap<>(Status.class);
+        for (Long taskId : List.copyOf(pending.keySet())) {
+            Status status = pending.remove(taskId);
+            if (status != null) {
+                byStatus.computeIfAbsent(status, s -> new ArrayList<>()).add(taskId);
+            }
+        }
+
+        int count = byStatus.values().stream().mapToInt(List::size).sum();
+        try {
+            int written = flushTimer.record(() -> transactionTemplate.execute(tx -> write(byStatus, OpenWrites.stamp())));
+            writtenCounter.increment(written);
+        } catch (RuntimeException e) {
+            log.warn("Writing {} status changes failed, retrying with the next flush", count, e);
+            // Changes submitted or discarded since the drain are newer and must win.
+            byStatus.forEach((status, ids) -> ids.stream().filter(id -> !discarded.contains(id)).forEach(id -> pending.putIfAbsent(id, status)));
+        }
+    }
+
+    private int write(Map<Status, List<Long>> byStatus, Instant now)
+    {
+        int written = 0;
+        for (Map.Entry<Status, List<Long>> entry : byStatus.entrySet()) {
+            List<Long> ids = entry.getValue();
+            for (int from = 0; from < ids.size(); from += UPDATE_CHUNK_SIZE) {
+                List<TaskVersion> tasks = repo.lockVersions(ids.subList(from, Math.min(from + UPDATE_CHUNK_SIZE, ids.size()))).stream()
+                .filter(task -> !discarded.contains(task.id()))
+                .toList();
+                if (tasks.isEmpty()) {
+                    continue;
+                }
+                repo.updateStatuses(entry.getKey(), tasks.stream().map(TaskVersion::id).toList(), now);
+                tasks.forEach(task -> events.publishEvent(TaskChange.statusChanged(task.id(), entry.getKey(), task.version() + 1,
+                    new TaskChange.State(task.status(), task.finishDate(), null))));
+                written += tasks.size();
+            }
+        }
+        return written;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException
+    {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+}
@@ -0,0 +1,34 @@
+package com.mchudzik.restapi.config;
+
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+/**
+ * Runs Tomcat request handling, and with it every controller and repository
+ * call, on virtual threads instead of the bounded platform thread pool.
+ * Only compiled by the {@code virtual-threads} Maven profile (Java 21) and
+ * only active under the {@code virtual-threads} Spring profile.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("virtual-threads")
+public class VirtualThreadConfiguration {
+
+    @Bean
+    TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer()
+    {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    AsyncTaskExecutor applicationTaskExecutor()
+    {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
@@ -0,0 +1,143 @@
+package com.mchudzik.restapi.config;
+
+import java.util.List;
+import java.util.Map;
+
+import org.reactivestreams.Publisher;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.mapping.model.Property;
+import org.springframework.data.mapping.model.SimpleTypeHolder;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+import org.springframework.data.relational.core.mapping.BasicRelationalPersistentProperty;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import jakarta.persistence.Id;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.Version;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Wiring for the {@code reactive} Spring profile, which swaps the servlet
+ * stack for WebFlux on Netty and JPA for R2DBC. Only the {@code reactive}
+ * Maven profile compiles it and puts WebFlux and R2DBC on the classpath.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("reactive")
+public class ReactiveConfiguration {
+
+    /**
+     * Tomcat is on the classpath for the servlet stack and would otherwise
+     * win the reactive server auto-configuration.
+     */
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory()
+    {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * Smile codecs sharing the JSON settings; the defaults write dates as
+     * arrays of numbers and break collections, see {@link SmileArrayEncoder}.
+     */
+    @Bean
+    CodecCustomizer smileCodecCustomizer(ObjectMapper objectMapper)
+    {
+        ObjectMapper smileMapper = objectMapper.copyWith(new SmileFactory());
+        MimeType[] mimeTypes = {new MimeType("application", "x-jackson-smile"), new MimeType("application", "*+x-jackson-smile")};
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new SmileArrayEncoder(smileMapper, mimeTypes));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, mimeTypes));
+        };
+    }
+
+    /**
+     * Quotes every identifier, as {@code globally_quoted_identifiers} does for
+     * Hibernate; the {@code user} table and {@code desc} column are reserved
+     * words in H2.
+     */
+    @Bean
+    R2dbcMappingContext r2dbcMappingContext(R2dbcCustomConversions conversions)
+    {
+        R2dbcMappingContext context = new JpaAnnotatedMappingContext();
+        context.setForceQuote(true);
+        context.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        return context;
+    }
+
+    /**
+     * Takes ids and versions from the JPA annotations so the entities serve
+     * both stacks unchanged; Spring Data JPA refuses entities that also carry
+     * Spring Data's own {@code @Version}. One-to-many associations are skipped
+     * and loaded from their join table instead.
+     */
+    static class JpaAnnotatedMappingContext extends R2dbcMappingContext {
+
+        @Override
+        protected RelationalPersistentProperty createPersistentProperty(Property property, RelationalPersistentEntity<?> owner, SimpleTypeHolder simpleTypeHolder)
+        {
+            BasicRelationalPersistentProperty persistentProperty = new BasicRelationalPersistentProperty(property, owner, simpleTypeHolder, getNamingStrategy()) {
+                @Override
+                public boolean isIdProperty()
+                {
+                    return super.isIdProperty() || isAnnotationPresent(Id.class);
+                }
+
+                @Override
+                public boolean isVersionProperty()
+                {
+                    return super.isVersionProperty() || isAnnotationPresent(Version.class);
+                }
+
+                @Override
+                public boolean isTransient()
+                {
+                    return super.isTransient() || isAnnotationPresent(OneToMany.class);
+                }
+            };
+            persistentProperty.setForceQuote(isForceQuote());
+            return persistentProperty;
+        }
+    }
+
+    /**
+     * Writes a collection as one Smile array. The base encoder joins the
+     * elements of a {@link Flux} with JSON brackets and commas, which is not
+     * valid Smile; streaming types still get one value per element.
+     */
+    static class SmileArrayEncoder extends Jackson2SmileEncoder {
+
+        SmileArrayEncoder(ObjectMapper mapper, MimeType... mimeTypes)
+        {
+            super(mapper, mimeTypes);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+            @Nullable MimeType mimeType, @Nullable Map<String, Object> hints)
+        {
+            if (!(inputStream instanceof Flux<?> flux) || getStreamingMediaTypes().stream().anyMatch(streaming -> streaming.isCompatibleWith(mimeType))) {
+                return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+            }
+            return flux.collectList()
+            .map(list -> encodeValue(list, bufferFactory, ResolvableType.forClassWithGenerics(List.class, elementType), mimeType, hints))
+            .flux();
+        }
+    }
+}
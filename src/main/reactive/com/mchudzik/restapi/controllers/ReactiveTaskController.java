@@ -0,0 +1,399 @@
+package com.mchudzik.restapi.controllers;
+
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import static com.mchudzik.restapi.config.SmileConfiguration.APPLICATION_SMILE_VALUE;
+
+import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.exceptions.StatusNotFoundException;
+import com.mchudzik.restapi.exceptions.TaskNotFoundException;
+import com.mchudzik.restapi.exceptions.UserNotFoundException;
+import com.mchudzik.restapi.models.AssignmentBatch;
+import com.mchudzik.restapi.models.AssignmentBatchResult;
+import com.mchudzik.restapi.models.BulkItemResult;
+import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.models.TaskAssignment;
+import com.mchudzik.restapi.repositories.ReactiveTaskRepository;
+import com.mchudzik.restapi.repositories.ReactiveUserRepository;
+import com.mchudzik.restapi.search.TaskSearchIndex;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux mirror of {@link TaskController} for the {@code reactive} profile.
+ * Collections are streamed as they are read, as a JSON array or as NDJSON
+ * when the client asks for {@code application/x-ndjson}, or as Smile for
+ * {@code application/x-jackson-smile}, so they carry plain tasks rather than
+ * HAL models.
+ */
+@RestController
+@RequestMapping("/tasks")
+@Profile("reactive")
+public class ReactiveTaskController {
+    private final ReactiveTaskRepository repo;
+    private final ReactiveUserRepository userRepo;
+    private final TaskSearchIndex searchIndex;
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int ASSIGNEE_BATCH_SIZE = 100;
+    private static final int BULK_LOOKUP_SIZE = 1000;
+
+    ReactiveTaskController(ReactiveTaskRepository repo, ReactiveUserRepository userRepo, TaskSearchIndex searchIndex)
+    {
+        this.repo = repo;
+        this.userRepo = userRepo;
+        this.searchIndex = searchIndex;
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, APPLICATION_SMILE_VALUE})
+    public Flux<Task> listTasks(@RequestParam(required=false) Long after, @RequestParam(required=false) Integer limit)
+    {
+        if (after == null && limit == null) {
+            return withAssignees(repo.findAll(Sort.by("id")));
+        }
+
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return withAssignees(repo.findAllByIdGreaterThan(after == null ? Long.MIN_VALUE : after, PageRequest.of(0, pageSize, Sort.by("id"))));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Task> exportTasks()
+    {
+        return withAssignees(repo.findAll(Sort.by("id")));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Task>> findTaskByID(@PathVariable Long id)
+    {
+        return findTask(id)
+        .flatMap(this::withAssignees)
+        .map(task -> ResponseEntity.ok().eTag(ETags.of(task.getVersion())).body(task));
+    }
+
+    @GetMapping(value = "/byUser", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, APPLICATION_SMILE_VALUE})
+    public Flux<Task> findTaskByUserID(@RequestParam Long userId)
+    {
+        return withAssignees(repo.findAllByAssignedUser(userId));
+    }
+
+    @GetMapping(value = "/byName", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, APPLICATION_SMILE_VALUE})
+    public Flux<Task> findTaskByString(@RequestParam String name, @RequestParam(required=false) Integer page, @RequestParam(required=false) Integer size)
+    {
+        List<Long> ids = searchIndex.search(name);
+
+        if (page != null || size != null) {
+            int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+            int pageNumber = page == null ? 0 : Math.max(0, page);
+            int from = (int) Math.min((long) pageNumber * pageSize, ids.size());
+            ids = ids.subList(from, Math.min(from + pageSize, ids.size()));
+        }
+
+        return withAssignees(Flux.fromIterable(ids)
+            .buffer(ASSIGNEE_BATCH_SIZE)
+            .concatMap(chunk -> findAllByIdAsMap(chunk)
+                .flatMapIterable(byId -> chunk.stream().map(byId::get).filter(Objects::nonNull).toList())));
+    }
+
+    @GetMapping(value = "/byStatus", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, APPLICATION_SMILE_VALUE})
+    public Flux<Task> findTaskByStatus(@RequestParam String status)
+    {
+        try{
+            return withAssignees(repo.findAllByStatus(Status.valueOf(status)));
+        }
+        catch(IllegalArgumentException e)
+        {
+            return Flux.error(new StatusNotFoundException(status));
+        }
+    }
+
+    @GetMapping(value = "/byDate", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, APPLICATION_SMILE_VALUE})
+    public Flux<Task> findTaskBetweenDates(@RequestParam LocalDate endDate, @RequestParam(required=false) LocalDate startDate)
+    {
+        if (startDate == null) {
+            return withAssignees(repo.findAllByFinishDateLessThanEqual(endDate));
+        }
+        return withAssignees(repo.findAllByFinishDateBetween(startDate, endDate));
+    }
+
+    @GetMapping(value = "/filter", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, APPLICATION_SMILE_VALUE})
+    public Flux<Task> filterTasks(@RequestParam(required=false) String status, @RequestParam(required=false) LocalDate startDate,
+        @RequestParam(required=false) LocalDate endDate, @RequestParam(required=false) Long userId)
+    {
+        Status statusEnum;
+        try{
+            statusEnum = status == null ? null : Status.valueOf(status);
+        }
+        catch(IllegalArgumentException e)
+        {
+            return Flux.error(new StatusNotFoundException(status));
+        }
+        return withAssignees(repo.filter(statusEnum, startDate, endDate, userId));
+    }
+
+    @PostMapping
+    @Transactional
+    public Mono<ResponseEntity<Task>> createTask(@RequestBody Task task, UriComponentsBuilder uriBuilder)
+    {
+        return saveWithAssignees(task)
+        .map(saved -> ResponseEntity.created(selfUri(uriBuilder, saved.getId())).body(saved));
+    }
+
+    @PostMapping("/bulk")
+    @Transactional
+    public Flux<BulkItemResult> createTasks(@RequestBody List<Task> newTasks)
+    {
+        return Flux.range(0, newTasks.size())
+        .concatMap(i -> {
+            Task task = newTasks.get(i);
+            task.setID(null);
+            return saveWithAssignees(task).map(saved -> new BulkItemResult(i, saved.getId(), HttpStatus.CREATED.value()));
+        });
+    }
+
+    @PatchMapping("/bulk")
+    @Transactional
+    public Flux<BulkItemResult> editTasks(@RequestBody List<Task> newTasks)
+    {
+        return Flux.range(0, newTasks.size())
+        .buffer(BULK_LOOKUP_SIZE)
+        .concatMap(indexes -> findAllByIdAsMap(indexes.stream().map(i -> newTasks.get(i).getId()).toList())
+            .flatMapMany(existing -> Flux.fromIterable(indexes).concatMap(i -> {
+                Task newTask = newTasks.get(i);
+                Task task = existing.get(newTask.getId());
+                if (task == null) {
+                    return Mono.just(new BulkItemResult(i, newTask.getId(), HttpStatus.NOT_FOUND.value()));
+                }
+                if (newTask.getName() != null) {
+                    task.setName(newTask.getName());
+                }
+                if (newTask.getDesc() != null) {
+                    task.setDesc(newTask.getDesc());
+                }
+                if (newTask.getFinishDate() != null) {
+                    task.setFinishDate(newTask.getFinishDate());
+                }
+                if (newTask.getStatus() != null) {
+                    task.setStatus(newTask.getStatus());
+                }
+                return save(task).map(saved -> new BulkItemResult(i, saved.getId(), HttpStatus.OK.value()));
+            })));
+    }
+
+    @DeleteMapping("/bulk")
+    @Transactional
+    public Flux<BulkItemResult> deleteTasks(@RequestBody List<Long> ids)
+    {
+        return Flux.range(0, ids.size())
+        .buffer(BULK_LOOKUP_SIZE)
+        .concatMap(indexes -> findAllByIdAsMap(indexes.stream().map(ids::get).toList())
+            .flatMapMany(existing -> Flux.fromIterable(indexes).concatMap(i -> {
+                Task task = existing.remove(ids.get(i));
+                if (task == null) {
+                    return Mono.just(new BulkItemResult(i, ids.get(i), HttpStatus.NOT_FOUND.value()));
+                }
+                return delete(task).thenReturn(new BulkItemResult(i, ids.get(i), HttpStatus.NO_CONTENT.value()));
+            })));
+    }
+
+    @DeleteMapping("/{id}")
+    @Transactional
+    public Mono<ResponseEntity<Void>> deleteTask(@PathVariable Long id)
+    {
+        return repo.findById(id)
+        .flatMap(this::delete)
+        .thenReturn(ResponseEntity.noContent().build());
+    }
+
+    @PutMapping("/{id}")
+    @Transactional
+    public Mono<ResponseEntity<Task>> editTask(@RequestBody Task newTask, @PathVariable Long id, @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch, UriComponentsBuilder uriBuilder)
+    {
+        return findTask(id)
+        .flatMap(task -> {
+            ETags.checkIfMatch(ifMatch, "Task", id, task.getVersion());
+            task.setName(newTask.getName());
+            task.setDesc(newTask.getDesc());
+            task.setFinishDate(newTask.getFinishDate());
+            task.setStatus(newTask.getStatus());
+            return save(task);
+        })
+        .flatMap(this::withAssignees)
+        .map(task -> ResponseEntity.created(selfUri(uriBuilder, id)).eTag(ETags.of(task.getVersion())).body(task));
+    }
+
+    @PutMapping("status/{id}")
+    @Transactional
+    public Mono<ResponseEntity<Task>> editStatus(@RequestBody Status newStatus, @PathVariable Long id, @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch, UriComponentsBuilder uriBuilder)
+    {
+        return findTask(id)
+        .flatMap(task -> {
+            ETags.checkIfMatch(ifMatch, "Task", id, task.getVersion());
+            task.setStatus(newStatus);
+            return save(task);
+        })
+        .flatMap(this::withAssignees)
+        .map(task -> ResponseEntity.created(selfUri(uriBuilder, id)).eTag(ETags.of(task.getVersion())).body(task));
+    }
+
+    @PutMapping()
+    @Transactional
+    public Mono<ResponseEntity<Task>> assignUser(@RequestParam Long taskId, @RequestParam Long userId, UriComponentsBuilder uriBuilder)
+    {
+        return findTask(taskId)
+        .flatMap(this::withAssignees)
+        .flatMap(task -> userRepo.findById(userId)
+            .switchIfEmpty(Mono.error(() -> new UserNotFoundException(userId)))
+            .flatMap(user -> {
+                if (task.getAssignedUsers().contains(userId)) {
+                    return Mono.just(task);
+                }
+                task.addUser(userId);
+                return repo.insertAssignment(taskId, userId).thenReturn(task);
+            }))
+        .map(task -> ResponseEntity.created(selfUri(uriBuilder, taskId)).body(task));
+    }
+
+    @DeleteMapping()
+    @Transactional
+    public Mono<ResponseEntity<Void>> unassignUser(@RequestParam Long taskId, @RequestParam Long userId)
+    {
+        return repo.deleteAssignment(taskId, userId)
+        .thenReturn(ResponseEntity.noContent().build());
+    }
+
+    @PutMapping("/assignments")
+    @Transactional
+    public Mono<AssignmentBatchResult> assignUsers(@RequestBody AssignmentBatch batch)
+    {
+        List<Long> taskIds = distinct(batch.taskIds());
+        List<Long> userIds = distinct(batch.userIds());
+        return requireAll(taskIds, repo::findExistingIds, TaskNotFoundException::new)
+        .then(requireAll(userIds, userRepo::findExistingIds, UserNotFoundException::new))
+        .thenMany(Flux.fromIterable(taskIds).buffer(BULK_LOOKUP_SIZE))
+        .concatMap(chunk -> repo.findAssignments(chunk, userIds)
+            .collect(Collectors.toSet())
+            .flatMapMany(existing -> Flux.fromIterable(chunk)
+                .concatMap(taskId -> Flux.fromIterable(userIds)
+                    .filter(userId -> !existing.contains(new TaskAssignment(taskId, userId)))
+                    .concatMap(userId -> repo.insertAssignment(taskId, userId)))))
+        .reduce(0L, Long::sum)
+        .map(AssignmentBatchResult::new);
+    }
+
+    @DeleteMapping("/assignments")
+    @Transactional
+    public Mono<AssignmentBatchResult> unassignUsers(@RequestBody AssignmentBatch batch)
+    {
+        List<Long> userIds = distinct(batch.userIds());
+        return Flux.fromIterable(distinct(batch.taskIds()))
+        .buffer(BULK_LOOKUP_SIZE)
+        .concatMap(chunk -> userIds.isEmpty() ? Mono.just(0) : repo.deleteAssignments(chunk, userIds))
+        .reduce(0L, Long::sum)
+        .map(AssignmentBatchResult::new);
+    }
+
+    private Mono<Task> findTask(Long id)
+    {
+        return repo.findById(id).switchIfEmpty(Mono.error(() -> new TaskNotFoundException(id)));
+    }
+
+    private Mono<Map<Long, Task>> findAllByIdAsMap(Collection<Long> ids)
+    {
+        return repo.findAllById(ids.stream().filter(Objects::nonNull).distinct().toList())
+        .collectMap(Task::getId, Function.identity());
+    }
+
+    /**
+     * Fails with the first id that {@code findExistingIds} does not return,
+     * querying {@code BULK_LOOKUP_SIZE} ids at a time.
+     */
+    private static Mono<Void> requireAll(List<Long> ids, Function<Collection<Long>, Flux<Long>> findExistingIds, Function<Long, RuntimeException> notFound)
+    {
+        return Flux.fromIterable(ids)
+        .buffer(BULK_LOOKUP_SIZE)
+        .concatMap(findExistingIds)
+        .collect(Collectors.toSet())
+        .flatMap(existing -> ids.stream()
+            .filter(id -> !existing.contains(id))
+            .findFirst()
+            .map(id -> Mono.<Void>error(notFound.apply(id)))
+            .orElse(Mono.empty()));
+    }
+
+    private static List<Long> distinct(List<Long> ids)
+    {
+        return ids == null ? List.of() : ids.stream().filter(Objects::nonNull).distinct().toList();
+    }
+
+    private Mono<Task> save(Task task)
+    {
+        return repo.save(task).doOnNext(searchIndex::index);
+    }
+
+    private Mono<Task> saveWithAssignees(Task task)
+    {
+        List<Long> assignedUsers = task.getAssignedUsers();
+        return save(task)
+        .flatMap(saved -> Flux.fromIterable(assignedUsers)
+            .concatMap(userId -> repo.insertAssignment(saved.getId(), userId))
+            .then(Mono.fromSupplier(() -> {
+                saved.setAssignedUsers(new ArrayList<>(assignedUsers));
+                return saved;
+            })));
+    }
+
+    private Mono<Void> delete(Task task)
+    {
+        return repo.deleteAssignments(task.getId())
+        .then(repo.delete(task))
+        .doOnSuccess(done -> searchIndex.remove(task));
+    }
+
+    private Mono<Task> withAssignees(Task task)
+    {
+        return withAssignees(Flux.just(task)).single();
+    }
+
+    /**
+     * Loads assignees for {@code ASSIGNEE_BATCH_SIZE} tasks per query. The
+     * buffer only requests as many tasks from the database as the subscriber
+     * has demanded, so a slow client throttles the read.
+     */
+    private Flux<Task> withAssignees(Flux<Task> tasks)
+    {
+        return tasks
+        .buffer(ASSIGNEE_BATCH_SIZE)
+        .concatMap(batch -> repo.findAssignments(batch.stream().map(Task::getId).toList())
+            .collectMultimap(TaskAssignment::taskId, TaskAssignment::userId)
+            .flatMapIterable(assignees -> {
+                batch.forEach(task -> task.setAssignedUsers(new ArrayList<>(assignees.getOrDefault(task.getId(), List.of()))));
+                return batch;
+            }));
+    }
+
+    private static URI selfUri(UriComponentsBuilder uriBuilder, Long id)
+    {
+        return uriBuilder.cloneBuilder().path("/tasks/{id}").buildAndExpand(id).toUri();
+    }
+}
@@ -0,0 +1,133 @@
+package com.mchudzik.restapi.controllers;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import static com.mchudzik.restapi.config.SmileConfiguration.APPLICATION_SMILE_VALUE;
+
+import com.mchudzik.restapi.exceptions.PreconditionFailedException;
+import com.mchudzik.restapi.exceptions.UserNotFoundException;
+import com.mchudzik.restapi.models.User;
+import com.mchudzik.restapi.repositories.ReactiveUserRepository;
+import com.mchudzik.restapi.search.UserSearchIndex;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux mirror of {@link UserController} for the {@code reactive} profile.
+ * Like {@link ReactiveTaskController} it streams plain users, not HAL models.
+ */
+@RestController
+@RequestMapping("/users")
+@Profile("reactive")
+public class ReactiveUserController {
+    private final ReactiveUserRepository repo;
+    private final UserSearchIndex searchIndex;
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int LOOKUP_BATCH_SIZE = 100;
+
+    ReactiveUserController(ReactiveUserRepository repo, UserSearchIndex searchIndex)
+    {
+        this.repo = repo;
+        this.searchIndex = searchIndex;
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, APPLICATION_SMILE_VALUE})
+    public Flux<User> listUsers(@RequestParam(required=false) Long after, @RequestParam(required=false) Integer limit)
+    {
+        if (after == null && limit == null) {
+            return repo.findAll(Sort.by("id"));
+        }
+
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return repo.findAllByIdGreaterThan(after == null ? Long.MIN_VALUE : after, PageRequest.of(0, pageSize, Sort.by("id")));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<User>> findUserByID(@PathVariable Long id)
+    {
+        return repo.findById(id)
+        .switchIfEmpty(Mono.error(() -> new UserNotFoundException(id)))
+        .map(user -> ResponseEntity.ok().eTag(ETags.of(user.getVersion())).body(user));
+    }
+
+    @GetMapping(value = "/byName", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, APPLICATION_SMILE_VALUE})
+    public Flux<User> findUserByString(@RequestParam String name, @RequestParam(required=false) Integer page, @RequestParam(required=false) Integer size)
+    {
+        List<Long> ids = searchIndex.search(name);
+
+        if (page != null || size != null) {
+            int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+            int pageNumber = page == null ? 0 : Math.max(0, page);
+            int from = (int) Math.min((long) pageNumber * pageSize, ids.size());
+            ids = ids.subList(from, Math.min(from + pageSize, ids.size()));
+        }
+
+        return Flux.fromIterable(ids)
+        .buffer(LOOKUP_BATCH_SIZE)
+        .concatMap(chunk -> repo.findAllById(chunk)
+            .collectMap(User::getId, Function.identity())
+            .flatMapIterable(byId -> chunk.stream().map(byId::get).filter(Objects::nonNull).toList()));
+    }
+
+    @PostMapping()
+    public Mono<ResponseEntity<User>> createUser(@RequestBody User user, UriComponentsBuilder uriBuilder)
+    {
+        return save(user)
+        .map(saved -> ResponseEntity.created(selfUri(uriBuilder, saved.getId())).body(saved));
+    }
+
+    @PutMapping("/{id}")
+    @Transactional
+    public Mono<ResponseEntity<User>> editUser(@RequestBody User newUser, @PathVariable Long id, @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch, UriComponentsBuilder uriBuilder)
+    {
+        return repo.findById(id)
+        .flatMap(user -> {
+            ETags.checkIfMatch(ifMatch, "User", id, user.getVersion());
+            user.setName(newUser.getName());
+            user.setSurname(newUser.getSurname());
+            user.setEmail(newUser.getEmail());
+            return save(user);
+        })
+        .switchIfEmpty(Mono.defer(() -> {
+            if (ifMatch != null) {
+                return Mono.error(new PreconditionFailedException("User", id));
+            }
+            return Mono.error(new UserNotFoundException(id));
+        }))
+        .map(user -> ResponseEntity.created(selfUri(uriBuilder, id)).eTag(ETags.of(user.getVersion())).body(user));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteUser(@PathVariable Long id)
+    {
+        return repo.findById(id)
+        .flatMap(user -> repo.delete(user).doOnSuccess(done -> searchIndex.remove(user)))
+        .thenReturn(ResponseEntity.noContent().build());
+    }
+
+    private Mono<User> save(User user)
+    {
+        return repo.save(user).doOnNext(searchIndex::index);
+    }
+
+    private static URI selfUri(UriComponentsBuilder uriBuilder, Long id)
+    {
+        return uriBuilder.cloneBuilder().path("/users/{id}").buildAndExpand(id).toUri();
+    }
+}
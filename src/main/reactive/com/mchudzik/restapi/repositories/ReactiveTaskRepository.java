@@ -0,0 +1,60 @@
+package com.mchudzik.restapi.repositories;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.models.TaskAssignment;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC counterpart of {@link TaskRepository}. R2DBC has no element
+ * collections, so assignees are read and written through the join table
+ * explicitly.
+ */
+public interface ReactiveTaskRepository extends R2dbcRepository<Task,Long>, ReactiveTaskRepositoryCustom{
+
+    Flux<Task> findAllByIdGreaterThan(Long id, Pageable pageable);
+
+    @Query("select t.* from task t join task_assigned_users a on a.task_id = t.id where a.user_id = :userId order by t.id")
+    Flux<Task> findAllByAssignedUser(Long userId);
+
+    Flux<Task> findAllByStatus(Status status);
+
+    Flux<Task> findAllByFinishDateLessThanEqual(LocalDate finishDate);
+
+    Flux<Task> findAllByFinishDateBetween(LocalDate finishDateStart, LocalDate finishDateEnd);
+
+    @Query("select task_id, user_id from task_assigned_users where task_id in (:taskIds)")
+    Flux<TaskAssignment> findAssignments(Collection<Long> taskIds);
+
+    @Query("select task_id, user_id from task_assigned_users where task_id in (:taskIds) and user_id in (:userIds)")
+    Flux<TaskAssignment> findAssignments(Collection<Long> taskIds, Collection<Long> userIds);
+
+    @Query("select id from task where id in (:ids)")
+    Flux<Long> findExistingIds(Collection<Long> ids);
+
+    @Modifying
+    @Query("insert into task_assigned_users (task_id, user_id) values (:taskId, :userId)")
+    Mono<Integer> insertAssignment(Long taskId, Long userId);
+
+    @Modifying
+    @Query("delete from task_assigned_users where task_id = :taskId and user_id = :userId")
+    Mono<Integer> deleteAssignment(Long taskId, Long userId);
+
+    @Modifying
+    @Query("delete from task_assigned_users where task_id = :taskId")
+    Mono<Integer> deleteAssignments(Long taskId);
+
+    @Modifying
+    @Query("delete from task_assigned_users where task_id in (:taskIds) and user_id in (:userIds)")
+    Mono<Integer> deleteAssignments(Collection<Long> taskIds, Collection<Long> userIds);
+}
@@ -0,0 +1,17 @@
+package com.mchudzik.restapi.repositories;
+
+import java.time.LocalDate;
+
+import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.models.Task;
+
+import reactor.core.publisher.Flux;
+
+public interface ReactiveTaskRepositoryCustom {
+
+    /**
+     * Reactive counterpart of {@link TaskSpecifications#filter}; null
+     * arguments do not constrain the result.
+     */
+    Flux<Task> filter(Status status, LocalDate startDate, LocalDate endDate, Long userId);
+}
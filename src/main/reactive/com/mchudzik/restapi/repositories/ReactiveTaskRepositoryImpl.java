@@ -0,0 +1,57 @@
+package com.mchudzik.restapi.repositories;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.models.Task;
+
+import reactor.core.publisher.Flux;
+
+class ReactiveTaskRepositoryImpl implements ReactiveTaskRepositoryCustom {
+    private final R2dbcEntityTemplate template;
+
+    ReactiveTaskRepositoryImpl(R2dbcEntityTemplate template)
+    {
+        this.template = template;
+    }
+
+    @Override
+    public Flux<Task> filter(Status status, LocalDate startDate, LocalDate endDate, Long userId)
+    {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> bindings = new LinkedHashMap<>();
+        if (status != null) {
+            conditions.add("t.status = :status");
+            bindings.put("status", status.name());
+        }
+        if (startDate != null) {
+            conditions.add("t.finish_date >= :startDate");
+            bindings.put("startDate", startDate);
+        }
+        if (endDate != null) {
+            conditions.add("t.finish_date <= :endDate");
+            bindings.put("endDate", endDate);
+        }
+        if (userId != null) {
+            conditions.add("exists (select 1 from task_assigned_users a where a.task_id = t.id and a.user_id = :userId)");
+            bindings.put("userId", userId);
+        }
+
+        String sql = "select t.* from task t"
+            + (conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions))
+            + " order by t.id";
+
+        DatabaseClient.GenericExecuteSpec spec = template.getDatabaseClient().sql(sql);
+        for (Map.Entry<String, Object> binding : bindings.entrySet()) {
+            spec = spec.bind(binding.getKey(), binding.getValue());
+        }
+        return spec.map((row, metadata) -> template.getConverter().read(Task.class, row, metadata)).all();
+    }
+}
@@ -0,0 +1,22 @@
+package com.mchudzik.restapi.repositories;
+
+import java.util.Collection;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+import com.mchudzik.restapi.models.User;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * R2DBC counterpart of {@link UserRepository}.
+ */
+public interface ReactiveUserRepository extends R2dbcRepository<User,Long>{
+
+    Flux<User> findAllByIdGreaterThan(Long id, Pageable pageable);
+
+    @Query("select id from \"USER\" where id in (:ids)")
+    Flux<Long> findExistingIds(Collection<Long> ids);
+}
@@ -0,0 +1,46 @@
+package com.mchudzik.restapi.search;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.mchudzik.restapi.repositories.ReactiveTaskRepository;
+import com.mchudzik.restapi.repositories.ReactiveUserRepository;
+
+/**
+ * {@link SearchIndexInitializer} for the {@code reactive} profile. R2DBC has
+ * no entity listeners, so the reactive controllers update the indexes on
+ * every write themselves.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveSearchIndexInitializer implements SmartInitializingSingleton {
+    private final ReactiveTaskRepository taskRepo;
+    private final ReactiveUserRepository userRepo;
+    private final TaskSearchIndex taskIndex;
+    private final UserSearchIndex userIndex;
+
+    ReactiveSearchIndexInitializer(ReactiveTaskRepository taskRepo, ReactiveUserRepository userRepo, TaskSearchIndex taskIndex, UserSearchIndex userIndex)
+    {
+        this.taskRepo = taskRepo;
+        this.userRepo = userRepo;
+        this.taskIndex = taskIndex;
+        this.userIndex = userIndex;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated()
+    {
+        rebuild();
+    }
+
+    public void rebuild()
+    {
+        taskIndex.clear();
+        userIndex.clear();
+
+        taskRepo.findAll().doOnNext(taskIndex::index)
+        .thenMany(userRepo.findAll().doOnNext(userIndex::index))
+        .blockLast();
+    }
+}
@@ -0,0 +1,36 @@
+-- Schema of the JPA entities for the postgres and h2-file profiles, where
+-- Hibernate only validates it (ddl-auto=validate). Identifiers are quoted to
+-- match hibernate.globally_quoted_identifiers; "user" is a reserved word.
+create sequence "task_seq" start with 1 increment by 50;
+create sequence "user_seq" start with 1 increment by 50;
+
+create table "task" (
+    "id" bigint not null,
+    "name" varchar(255),
+    "desc" varchar(255),
+    "status" varchar(255) check ("status" in ('NEW', 'IN_PROGRESS', 'IN_VERIFICATION', 'COMPLETED', 'ABANDONED')),
+    "finish_date" date,
+    "version" bigint,
+    primary key ("id")
+);
+
+create table "user" (
+    "id" bigint not null,
+    "name" varchar(255),
+    "surname" varchar(255),
+    "email" varchar(255),
+    "version" bigint,
+    primary key ("id")
+);
+
+-- No foreign key on user_id: tasks keep assignments of deleted users.
+create table "task_assigned_users" (
+    "task_id" bigint not null,
+    "user_id" bigint not null,
+    primary key ("task_id", "user_id"),
+    constraint "task_assigned_users_task_fk" foreign key ("task_id") references "task"
+);
+
+create index "task_status_finish_date_idx" on "task" ("status", "finish_date");
+create index "task_finish_date_idx" on "task" ("finish_date");
+create index "task_assigned_users_user_idx" on "task_assigned_users" ("user_id");
@@ -0,0 +1,19 @@
+-- Delta sync (modifiedSince): modification times of tasks and users, and
+-- tombstones of deleted ones. Rows that predate the columns count as last
+-- modified at migration time.
+alter table "task" add column "last_modified" timestamp(6) with time zone;
+alter table "user" add column "last_modified" timestamp(6) with time zone;
+update "task" set "last_modified" = current_timestamp;
+update "user" set "last_modified" = current_timestamp;
+
+create index "task_last_modified_idx" on "task" ("last_modified");
+create index "user_last_modified_idx" on "user" ("last_modified");
+
+create table "tombstone" (
+    "type" varchar(255) not null check ("type" in ('TASK', 'USER')),
+    "entity_id" bigint not null,
+    "deleted_at" timestamp(6) with time zone,
+    primary key ("entity_id", "type")
+);
+
+create index "tombstone_type_deleted_at_idx" on "tombstone" ("type", "deleted_at");
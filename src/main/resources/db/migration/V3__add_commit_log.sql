@@ -0,0 +1,30 @@
+-- Delta sync by commit order: rows carry the id of the transaction that last
+-- wrote them, and sync_commit records when each such transaction committed.
+-- Rows that predate the columns are only returned by a full load.
+alter table "task" add column "txid" uuid;
+alter table "user" add column "txid" uuid;
+alter table "tombstone" add column "txid" uuid;
+
+drop index "task_last_modified_idx";
+drop index "user_last_modified_idx";
+drop index "tombstone_type_deleted_at_idx";
+create index "task_txid_idx" on "task" ("txid");
+create index "user_txid_idx" on "user" ("txid");
+create index "tombstone_type_txid_idx" on "tombstone" ("type", "txid");
+
+create table "sync_commit" (
+    "txid" uuid not null,
+    "committed_at" timestamp(6) with time zone,
+    primary key ("txid")
+);
+
+create index "sync_commit_committed_at_idx" on "sync_commit" ("committed_at");
+
+-- The single row writing transactions lock to take their commit time.
+create table "sync_clock" (
+    "id" integer not null,
+    "last_commit" timestamp(6) with time zone,
+    primary key ("id")
+);
+
+insert into "sync_clock" ("id", "last_commit") values (1, current_timestamp);
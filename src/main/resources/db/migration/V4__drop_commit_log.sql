@@ -0,0 +1,16 @@
+-- Delta sync by modification time again: rows are selected by their indexed
+-- last_modified, and the sync point waits for the oldest open write instead
+-- of every commit taking the sync_clock lock.
+drop table "sync_clock";
+drop table "sync_commit";
+
+drop index "task_txid_idx";
+drop index "user_txid_idx";
+drop index "tombstone_type_txid_idx";
+alter table "task" drop column "txid";
+alter table "user" drop column "txid";
+alter table "tombstone" drop column "txid";
+
+create index "task_last_modified_idx" on "task" ("last_modified");
+create index "user_last_modified_idx" on "user" ("last_modified");
+create index "tombstone_type_deleted_at_idx" on "tombstone" ("type", "deleted_at");
@@ -0,0 +1,32 @@
+-- Schema for the reactive profile. Spring Data R2DBC quotes the upper-case
+-- names it derives for H2, so identifiers are declared in H2's default upper
+-- case; DESC and USER are reserved words and have to be quoted. Ids come from
+-- identity columns since R2DBC has no sequence-based id generator.
+create table if not exists task (
+    id bigint generated by default as identity primary key,
+    name varchar(255),
+    "DESC" varchar(255),
+    status varchar(255),
+    finish_date date,
+    version bigint,
+    last_modified timestamp(6) with time zone
+);
+
+create table if not exists task_assigned_users (
+    task_id bigint not null references task (id),
+    user_id bigint not null,
+    primary key (task_id, user_id)
+);
+
+create index if not exists task_status_finish_date_idx on task (status, finish_date);
+create index if not exists task_finish_date_idx on task (finish_date);
+create index if not exists task_assigned_users_user_idx on task_assigned_users (user_id);
+
+create table if not exists "USER" (
+    id bigint generated by default as identity primary key,
+    name varchar(255),
+    surname varchar(255),
+    email varchar(255),
+    version bigint,
+    last_modified timestamp(6) with time zone
+);
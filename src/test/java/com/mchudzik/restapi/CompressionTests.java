@@ -0,0 +1,87 @@
+package com.mchudzik.restapi;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.repositories.TaskRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compression is done by Tomcat, so these requests go through a real port.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CompressionTests {
+
+    @Autowired
+    private TaskRepository taskRepo;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @AfterEach
+    public void resetTaskRepo()
+    {
+        taskRepo.deleteAll();
+    }
+
+    private HttpResponse<byte[]> get(String path) throws Exception
+    {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+        .build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    @Test
+    void testLargeCollectionIsCompressed() throws Exception{
+        //given
+        taskRepo.saveAll(IntStream.range(0, 100)
+        .mapToObj(i -> new Task("zadanie " + i, "opis", Status.NEW, LocalDate.ofEpochDay(i)))
+        .toList());
+
+        //when
+        HttpResponse<byte[]> response = get("/tasks");
+
+        //then
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+        assertTrue(response.headers().firstValue(HttpHeaders.ETAG).orElseThrow().startsWith("W/"));
+        JsonNode tasks = objectMapper.readTree(new GZIPInputStream(new ByteArrayInputStream(response.body())));
+        assertEquals(100, tasks.at("/_embedded/taskList").size());
+    }
+
+    @Test
+    void testSmallResponseIsNotCompressed() throws Exception{
+        //given
+        Task task = taskRepo.save(new Task("hakowanie", "bol", Status.NEW, LocalDate.ofEpochDay(0)));
+
+        //when
+        HttpResponse<byte[]> response = get("/tasks/" + task.getId());
+
+        //then
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).isEmpty());
+        assertEquals("hakowanie", objectMapper.readTree(response.body()).get("name").asText());
+    }
+}
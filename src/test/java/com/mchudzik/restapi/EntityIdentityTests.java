@@ -0,0 +1,132 @@
+package com.mchudzik.restapi;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.models.User;
+import com.mchudzik.restapi.repositories.TaskRepository;
+import com.mchudzik.restapi.repositories.UserRepository;
+
+import jakarta.persistence.EntityManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class EntityIdentityTests {
+
+    @Autowired
+    private TaskRepository taskRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void resetRepos()
+    {
+        taskRepo.deleteAll();
+        userRepo.deleteAll();
+    }
+
+    @Test
+    void testTransientTasksEqualOnlyThemselves() {
+        //given
+        Task first = new Task("hakowanie", "bol", Status.NEW, LocalDate.ofEpochDay(0));
+        Task second = new Task("hakowanie", "bol", Status.NEW, LocalDate.ofEpochDay(0));
+
+        //when
+        Set<Task> tasks = new HashSet<>(Set.of(first, second));
+
+        //then
+        assertNotEquals(first, second);
+        assertEquals(first, first);
+        assertEquals(2, tasks.size());
+    }
+
+    @Test
+    void testTaskStaysInSetWhenPersistedAndChanged() {
+        //given
+        Task task = new Task("hakowanie", "bol", Status.NEW, LocalDate.ofEpochDay(0));
+        Set<Task> tasks = new HashSet<>();
+        tasks.add(task);
+
+        //when
+        Task saved = taskRepo.save(task);
+        saved.setStatus(Status.COMPLETED);
+        saved.setName("pisanie");
+
+        //then
+        assertSame(task, saved);
+        assertTrue(tasks.contains(saved));
+        assertTrue(tasks.remove(saved));
+    }
+
+    @Test
+    void testDetachedTaskEqualsPersistedOneWithoutLoadingAssignees() {
+        //given
+        Task saved = taskRepo.save(new Task("hakowanie", "bol", Status.NEW, LocalDate.ofEpochDay(0)));
+        Map<Task, String> names = new HashMap<>();
+        names.put(saved, saved.getName());
+
+        //when
+        Task detached = taskRepo.findById(saved.getId()).orElseThrow();
+
+        //then
+        assertNotSame(saved, detached);
+        assertEquals(saved, detached);
+        assertEquals(saved.hashCode(), detached.hashCode());
+        assertEquals("hakowanie", names.get(detached));
+    }
+
+    @Test
+    void testTaskProxyEqualsLoadedTask() {
+        //given
+        Task saved = taskRepo.save(new Task("hakowanie", "bol", Status.NEW, LocalDate.ofEpochDay(0)));
+
+        //when
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Task proxy = entityManager.getReference(Task.class, saved.getId());
+
+            //then
+            assertFalse(Hibernate.isInitialized(proxy));
+            assertEquals(saved, proxy);
+            assertFalse(Hibernate.isInitialized(proxy));
+            assertEquals(proxy, saved);
+            assertTrue(new HashSet<>(Set.of(saved)).contains(proxy));
+        });
+    }
+
+    @Test
+    void testUserStaysInSetThroughPersistAndDetach() {
+        //given
+        User user = new User("jan", "jowalski", "jjowalski@gmail.com");
+        User other = new User("jan", "jowalski", "jjowalski@gmail.com");
+        Set<User> users = new HashSet<>(Set.of(user, other));
+
+        //when
+        User saved = userRepo.save(user);
+        User detached = userRepo.findById(saved.getId()).orElseThrow();
+        detached.setEmail("jan@gmail.com");
+
+        //then
+        assertEquals(2, users.size());
+        assertNotEquals(user, other);
+        assertEquals(user, detached);
+        assertTrue(users.contains(detached));
+    }
+}
@@ -0,0 +1,28 @@
+package com.mchudzik.restapi;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Runs {@link TaskControllerTests} against the file-backed {@code h2-file}
+ * profile, with the schema created by Flyway and periodic snapshots off.
+ */
+@ActiveProfiles("h2-file")
+@TestPropertySource(properties = {"h2-file.directory=./target/h2-file-tests", "h2-file.snapshot.interval=0s"})
+class FileTaskControllerTests extends TaskControllerTests {
+
+    @Autowired
+    private EntityManagerFactory fileEntityManagerFactory;
+
+    // The JCache manager is per JVM, so the in-memory contexts' entries with
+    // the same ids would otherwise share the regions.
+    @BeforeEach
+    public void evictSecondLevelCache()
+    {
+        fileEntityManagerFactory.getCache().evictAll();
+    }
+}
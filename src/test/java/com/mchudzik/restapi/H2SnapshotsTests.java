@@ -0,0 +1,85 @@
+package com.mchudzik.restapi;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.mchudzik.restapi.snapshot.H2Snapshots;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class H2SnapshotsTests {
+
+    @TempDir
+    private Path dir;
+
+    private static JdbcDataSource dataSource(Path directory)
+    {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(url(directory));
+        dataSource.setUser("sa");
+        return dataSource;
+    }
+
+    private static String url(Path directory)
+    {
+        return "jdbc:h2:file:" + directory.toAbsolutePath() + "/restapi";
+    }
+
+    @ParameterizedTest
+    @EnumSource(H2Snapshots.Format.class)
+    void testSnapshotIsRestoredWhenDatabaseIsMissing(H2Snapshots.Format format) throws Exception{
+        //given
+        Path source = dir.resolve("source");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource(source));
+        jdbc.execute("create table task(id bigint primary key, name varchar(255))");
+        jdbc.update("insert into task select x, 'task ' || x from system_range(1, 1000)");
+        Path snapshot = new H2Snapshots(source, "restapi", format, 3).snapshot(dataSource(source));
+        jdbc.execute("shutdown");
+
+        Path target = dir.resolve("target");
+        Files.createDirectories(target.resolve("snapshots"));
+        Files.copy(snapshot, target.resolve("snapshots").resolve(snapshot.getFileName()));
+        H2Snapshots snapshots = new H2Snapshots(target, "restapi", format, 3);
+
+        //when
+        boolean restored = snapshots.restoreIfMissing(url(target), "sa", "");
+
+        //then
+        assertTrue(restored);
+        JdbcTemplate restoredJdbc = new JdbcTemplate(dataSource(target));
+        assertEquals(1000, restoredJdbc.queryForObject("select count(*) from task", Integer.class));
+        assertFalse(snapshots.restoreIfMissing(url(target), "sa", ""));
+        restoredJdbc.execute("shutdown");
+    }
+
+    @Test
+    void testOnlyNewestSnapshotsAreRetained() throws Exception{
+        //given
+        JdbcDataSource dataSource = dataSource(dir);
+        new JdbcTemplate(dataSource).execute("create table task(id bigint primary key)");
+        H2Snapshots snapshots = new H2Snapshots(dir, "restapi", H2Snapshots.Format.BACKUP, 2);
+
+        //when
+        snapshots.snapshot(dataSource);
+        Thread.sleep(2);
+        snapshots.snapshot(dataSource);
+        Thread.sleep(2);
+        Path newest = snapshots.snapshot(dataSource);
+
+        //then
+        try (var files = Files.list(dir.resolve("snapshots"))) {
+            assertEquals(2, files.count());
+        }
+        assertEquals(newest, snapshots.latest().get());
+        new JdbcTemplate(dataSource).execute("shutdown");
+    }
+}
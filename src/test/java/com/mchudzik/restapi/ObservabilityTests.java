@@ -0,0 +1,59 @@
+package com.mchudzik.restapi;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.repositories.TaskRepository;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.hamcrest.Matchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class ObservabilityTests {
+
+    @Autowired
+    private TaskRepository taskRepo;
+    @Autowired
+    private MockMvc mockMvc;
+
+    @AfterEach
+    public void resetTaskRepo()
+    {
+        taskRepo.deleteAll();
+    }
+
+    @Test
+    void testPrometheusEndpointExposesRequestRepositoryAndDatabaseMetrics() throws Exception{
+        //given
+        Task task = taskRepo.save(new Task("hakowanie", "bol", Status.NEW, LocalDate.ofEpochDay(0)));
+        mockMvc.perform(get("/tasks/" + task.getId()))
+        .andExpect(status().isOk());
+
+        //when
+        mockMvc.perform(get("/actuator/prometheus"))
+        //then
+        .andExpect(status().isOk())
+        .andExpect(content().string(allOf(
+            containsString("http_server_requests_seconds_bucket{application=\"restapi\""),
+            containsString("uri=\"/tasks/{id}\""),
+            containsString("spring_data_repository_invocations_seconds_bucket{application=\"restapi\""),
+            containsString("repository=\"TaskRepository\""),
+            containsString("hibernate_query_executions_total"),
+            containsString("hibernate_entities_loads_total"),
+            containsString("hibernate_collections_fetches_total"),
+            containsString("hikaricp_connections_active"))));
+    }
+}
@@ -0,0 +1,115 @@
+package com.mchudzik.restapi;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.models.User;
+import com.mchudzik.restapi.repositories.TaskRepository;
+import com.mchudzik.restapi.repositories.UserRepository;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the postgres profile, with its Flyway migration, schema validation and
+ * open-in-view=false, against H2 in PostgreSQL mode as a stand-in, with
+ * Hibernate using the PostgreSQL dialect. Not transactional, so a lazy load
+ * outside of a transaction fails here as it would in production.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:postgres;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;IGNORE_UNKNOWN_SETTINGS=TRUE",
+    "spring.datasource.username=sa",
+    "spring.datasource.password="
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("postgres")
+class PostgresProfileTests {
+
+    @Autowired
+    private TaskRepository taskRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MockMvc mockMvc;
+
+    private static final String TASKS_PATH = "/tasks";
+
+    @AfterEach
+    public void resetRepos()
+    {
+        taskRepo.deleteAll();
+        userRepo.deleteAll();
+    }
+
+    @Test
+    void testSchemaIsMigratedByFlyway()
+    {
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from \"flyway_schema_history\" where \"version\" = '1' and \"success\"", Integer.class));
+    }
+
+    @Test
+    void testTaskEndpointsWithoutOpenSessionInView() throws Exception{
+        //given
+        User user = userRepo.save(new User("jan", "jowalski", "jjowalski@gmail.com"));
+        Task task = new Task("hakowanie", "bol", Status.NEW, LocalDate.ofEpochDay(0));
+        task.addUser(user.getId());
+
+        mockMvc.perform(post(TASKS_PATH)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(task)))
+        .andExpect(status().isCreated());
+        Long taskId = taskRepo.findAll().get(0).getId();
+
+        //when
+        mockMvc.perform(get(TASKS_PATH + "/" + taskId))
+        //then
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.assignedUsers", contains(user.getId().intValue())));
+
+        mockMvc.perform(get(TASKS_PATH))
+        .andExpect(jsonPath("$._embedded.taskList[0].assignedUsers", contains(user.getId().intValue())));
+
+        mockMvc.perform(get(TASKS_PATH).param("limit","10"))
+        .andExpect(jsonPath("$._embedded.taskList[0].assignedUsers", contains(user.getId().intValue())));
+
+        mockMvc.perform(get(TASKS_PATH + "/byUser").param("userId",user.getId().toString()))
+        .andExpect(jsonPath("$._embedded.taskList[*].id", contains(taskId.intValue())));
+
+        mockMvc.perform(get(TASKS_PATH + "/filter").param("status","NEW").param("userId",user.getId().toString()))
+        .andExpect(jsonPath("$._embedded.taskList[*].id", contains(taskId.intValue())));
+
+        mockMvc.perform(put(TASKS_PATH + "/status/" + taskId)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("\"COMPLETED\""))
+        .andExpect(status().isCreated());
+
+        mockMvc.perform(put(TASKS_PATH).param("taskId",taskId.toString()).param("userId",user.getId().toString()))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.assignedUsers", contains(user.getId().intValue())));
+
+        mockMvc.perform(get("/users/" + user.getId()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.name", is("jan")));
+    }
+}
@@ -0,0 +1,192 @@
+package com.mchudzik.restapi;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.repositories.TaskRepository;
+import com.mchudzik.restapi.writebehind.StatusUpdateQueue;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.hamcrest.Matchers.endsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+    "tasks.status-write-behind.enabled=true",
+    "tasks.status-write-behind.flush-interval=1h"
+})
+@AutoConfigureMockMvc
+class StatusUpdateQueueTests {
+
+    @Autowired
+    private TaskRepository taskRepo;
+    @Autowired
+    private StatusUpdateQueue statusUpdates;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private static final String TASKS_PATH = "/tasks";
+
+    @AfterEach
+    public void resetTaskRepo()
+    {
+        statusUpdates.flush();
+        taskRepo.deleteAll();
+    }
+
+    private void putStatus(Long id, Status status) throws Exception
+    {
+        mockMvc.perform(put(TASKS_PATH + "/status/" + id)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("\"" + status + "\""))
+        .andExpect(status().isAccepted())
+        .andExpect(header().string(HttpHeaders.LOCATION, endsWith(TASKS_PATH + "/" + id)));
+    }
+
+    @Test
+    void testStatusUpdatesAreCoalescedAndWrittenInBatch() throws Exception{
+        //given
+        Task task = taskRepo.save(new Task("hakowanie", "bol", Status.NEW, LocalDate.ofEpochDay(0)));
+        Task other = taskRepo.save(new Task("pisanie", "bol", Status.NEW, LocalDate.ofEpochDay(1)));
+        double flushes = meterRegistry.get("tasks.status.write-behind.flush").timer().count();
+
+        //when
+        putStatus(task.getId(), Status.IN_PROGRESS);
+        putStatus(task.getId(), Status.COMPLETED);
+        putStatus(other.getId(), Status.IN_PROGRESS);
+
+        //then
+        assertEquals(Status.NEW, taskRepo.findById(task.getId()).get().getStatus());
+        assertEquals(2.0, meterRegistry.get("tasks.status.write-behind.queue.depth").gauge().value());
+
+        statusUpdates.flush();
+
+        Task written = taskRepo.findById(task.getId()).get();
+        assertEquals(Status.COMPLETED, written.getStatus());
+        assertEquals(task.getVersion() + 1, written.getVersion());
+        assertEquals(Status.IN_PROGRESS, taskRepo.findById(other.getId()).get().getStatus());
+        assertEquals(0, statusUpdates.depth());
+        assertEquals(flushes + 1, meterRegistry.get("tasks.status.write-behind.flush").timer().count());
+    }
+
+    @Test
+    void testConditionalStatusUpdateIsWrittenImmediately() throws Exception{
+        //given
+        Task task = taskRepo.save(new Task("hakowanie", "bol", Status.NEW, LocalDate.ofEpochDay(0)));
+
+        //when
+        mockMvc.perform(put(TASKS_PATH + "/status/" + task.getId())
+        .header(HttpHeaders.IF_MATCH, "\"" + task.getVersion() + "\"")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("\"" + Status.COMPLETED + "\""))
+        //then
+        .andExpect(status().isCreated());
+
+        assertEquals(Status.COMPLETED, taskRepo.findById(task.getId()).get().getStatus());
+        assertEquals(0, statusUpdates.depth());
+    }
+
+    @Test
+    void testStatusUpdateOfMissingTaskIsNotFound() throws Exception{
+        //when
+        mockMvc.perform(put(TASKS_PATH + "/status/12345")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("\"" + Status.COMPLETED + "\""))
+        //then
+        .andExpect(status().isNotFound());
+
+        assertEquals(0, statusUpdates.depth());
+    }
+
+    @Test
+    void testFlushWritesOnlyExistingTasks() throws Exception{
+        //given
+        Task task = taskRepo.save(new Task("hakowanie", "bol", Status.NEW, LocalDate.ofEpochDay(0)));
+        double written = meterRegistry.get("tasks.status.write-behind.written").counter().count();
+        statusUpdates.submit(task.getId(), Status.COMPLETED);
+        statusUpdates.submit(task.getId() + 1000, Status.COMPLETED);
+
+        //when
+        statusUpdates.flush();
+
+        //then
+        assertEquals(Status.COMPLETED, taskRepo.findById(task.getId()).get().getStatus());
+        assertEquals(written + 1, meterRegistry.get("tasks.status.write-behind.written").counter().count());
+    }
+
+    @Test
+    void testSynchronousWriteDiscardsPendingStatus() throws Exception{
+        //given
+        Task task = taskRepo.save(new Task("hakowanie", "bol", Status.NEW, LocalDate.ofEpochDay(0)));
+        putStatus(task.getId(), Status.ABANDONED);
+
+        //when
+        mockMvc.perform(put(TASKS_PATH + "/" + task.getId())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(new Task("hakowanie", "bol", Status.COMPLETED, LocalDate.ofEpochDay(0)))))
+        .andExpect(status().isCreated());
+        statusUpdates.flush();
+
+        //then
+        assertEquals(0, statusUpdates.depth());
+        assertEquals(Status.COMPLETED, taskRepo.findById(task.getId()).get().getStatus());
+    }
+
+    @Test
+    void testEditDuringFlushIsNotRejected() throws Exception{
+        //given
+        Task task = taskRepo.save(new Task("hakowanie", "bol", Status.NEW, LocalDate.ofEpochDay(0)));
+        CountDownLatch locked = new CountDownLatch(1);
+        // Writes like a flush, holding the row lock a while before it updates
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(() -> new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            taskRepo.lockVersions(List.of(task.getId()));
+            locked.countDown();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            taskRepo.updateStatuses(Status.ABANDONED, List.of(task.getId()), Instant.now());
+        }));
+        locked.await();
+
+        //when
+        mockMvc.perform(put(TASKS_PATH + "/" + task.getId())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(new Task("pisanie", "bol", Status.COMPLETED, LocalDate.ofEpochDay(0)))))
+        //then
+        .andExpect(status().isCreated())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"" + (task.getVersion() + 2) + "\""));
+        flush.join();
+
+        Task written = taskRepo.findById(task.getId()).get();
+        assertEquals("pisanie", written.getName());
+        assertEquals(Status.COMPLETED, written.getStatus());
+    }
+}
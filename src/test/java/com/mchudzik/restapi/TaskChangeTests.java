@@ -0,0 +1,221 @@
+package com.mchudzik.restapi;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mchudzik.restapi.changes.TaskChangeStream;
+import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.models.AssignmentBatch;
+import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.models.User;
+import com.mchudzik.restapi.repositories.TaskRepository;
+import com.mchudzik.restapi.repositories.UserRepository;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"tasks.changes.buffer-size=8", "tasks.changes.max-subscribers=2"})
+@AutoConfigureMockMvc
+class TaskChangeTests {
+
+    @Autowired
+    private TaskRepository taskRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private TaskChangeStream stream;
+
+    private static final String TASKS_PATH = "/tasks";
+    private static final String CHANGES_PATH = "/tasks/changes";
+
+    @AfterEach
+    public void resetTaskRepo()
+    {
+        taskRepo.deleteAll();
+        userRepo.deleteAll();
+    }
+
+    private long currentPosition() throws Exception
+    {
+        MvcResult poll = mockMvc.perform(get(CHANGES_PATH).accept(MediaType.APPLICATION_JSON)).andReturn();
+        JsonNode slice = objectMapper.readTree(mockMvc.perform(asyncDispatch(poll)).andReturn().getResponse().getContentAsString());
+        return slice.get("lastId").asLong();
+    }
+
+    private Long createTask(String name) throws Exception
+    {
+        String body = mockMvc.perform(post(TASKS_PATH)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(new Task(name, "bol", Status.NEW, LocalDate.ofEpochDay(0)))))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    @Test
+    void testPollReturnsChangesAfterPosition() throws Exception{
+        //given
+        long position = currentPosition();
+        Long id = createTask("hakowanie");
+        mockMvc.perform(put(TASKS_PATH + "/status/" + id)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("\"" + Status.COMPLETED + "\""));
+        mockMvc.perform(delete(TASKS_PATH + "/" + id));
+
+        //when
+        MvcResult poll = mockMvc.perform(get(CHANGES_PATH).param("after", Long.toString(position)).accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(poll))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.reset", is(false)))
+        .andExpect(jsonPath("$.lastId", is((int) position + 3)))
+        .andExpect(jsonPath("$.changes[*].type", contains("CREATED", "STATUS_CHANGED", "DELETED")))
+        .andExpect(jsonPath("$.changes[*].taskId", everyItem(is(id.intValue()))))
+        .andExpect(jsonPath("$.changes[0].id", is((int) position + 1)))
+        .andExpect(jsonPath("$.changes[0].name", is("hakowanie")))
+        .andExpect(jsonPath("$.changes[1].status", is("COMPLETED")))
+        .andExpect(jsonPath("$.changes[1].name").doesNotExist());
+    }
+
+    @Test
+    void testPollWaitsForNextChange() throws Exception{
+        //given
+        long position = currentPosition();
+        MvcResult poll = mockMvc.perform(get(CHANGES_PATH).param("after", Long.toString(position)).accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+        //when
+        Long id = createTask("hakowanie");
+
+        //then
+        mockMvc.perform(asyncDispatch(poll))
+        .andExpect(jsonPath("$.changes", hasSize(1)))
+        .andExpect(jsonPath("$.changes[0].type", is("CREATED")))
+        .andExpect(jsonPath("$.changes[0].taskId", is(id.intValue())));
+    }
+
+    @Test
+    void testBatchAssignmentPublishesChangePerTask() throws Exception{
+        //given
+        Long userId = userRepo.save(new User("jan", "jowalski", "jjowalski@gmail.com")).getId();
+        Long first = taskRepo.save(new Task("hakowanie", "bol", Status.NEW, LocalDate.ofEpochDay(0))).getId();
+        Long second = taskRepo.save(new Task("pisanie", "bol", Status.NEW, LocalDate.ofEpochDay(1))).getId();
+        long position = currentPosition();
+
+        //when
+        mockMvc.perform(put(TASKS_PATH + "/assignments")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(new AssignmentBatch(List.of(first, second), List.of(userId)))))
+        .andExpect(status().isOk());
+        mockMvc.perform(delete(TASKS_PATH + "/assignments")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(new AssignmentBatch(List.of(second), List.of(userId)))))
+        .andExpect(status().isOk());
+
+        //then
+        MvcResult poll = mockMvc.perform(get(CHANGES_PATH).param("after", Long.toString(position)).accept(MediaType.APPLICATION_JSON)).andReturn();
+        mockMvc.perform(asyncDispatch(poll))
+        .andExpect(jsonPath("$.changes[*].type", contains("ASSIGNED", "ASSIGNED", "UNASSIGNED")))
+        .andExpect(jsonPath("$.changes[*].taskId", contains(first.intValue(), second.intValue(), second.intValue())))
+        .andExpect(jsonPath("$.changes[*].userIds", everyItem(contains(userId.intValue()))));
+    }
+
+    @Test
+    void testPollAfterOverwrittenChangesResets() throws Exception{
+        //given
+        long position = currentPosition();
+        for (int i = 0; i < 10; i++) {
+            createTask("zadanie " + i);
+        }
+
+        //when
+        MvcResult poll = mockMvc.perform(get(CHANGES_PATH).param("after", Long.toString(position)).accept(MediaType.APPLICATION_JSON))
+        .andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(poll))
+        .andExpect(jsonPath("$.reset", is(true)))
+        .andExpect(jsonPath("$.changes", hasSize(0)))
+        .andExpect(jsonPath("$.lastId", is((int) position + 10)));
+    }
+
+    @Test
+    void testStreamResumesFromLastEventId() throws Exception{
+        //given
+        long position = currentPosition();
+        Long first = createTask("hakowanie");
+
+        //when
+        MvcResult stream = mockMvc.perform(get(CHANGES_PATH).accept(MediaType.TEXT_EVENT_STREAM)
+        .header("Last-Event-ID", Long.toString(position)))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+        Long second = createTask("pisanie");
+
+        //then
+        String events = awaitContent(stream, "id:" + (position + 2));
+        assertTrue(events.contains("id:" + (position + 1) + "\ndata:{\"type\":\"CREATED\",\"taskId\":" + first), events);
+        assertTrue(events.contains("\"taskId\":" + second), events);
+    }
+
+    @Test
+    void testStreamsBeyondTheLimitAreRefused() throws Exception{
+        //given
+        List<MvcResult> streams = new ArrayList<>();
+        try {
+            while (stream.subscriberCount() < 2) {
+                streams.add(mockMvc.perform(get(CHANGES_PATH).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn());
+            }
+
+            //when
+            mockMvc.perform(get(CHANGES_PATH).accept(MediaType.TEXT_EVENT_STREAM))
+
+            //then
+            .andExpect(status().isServiceUnavailable());
+        } finally {
+            streams.forEach(result -> result.getRequest().getAsyncContext().complete());
+        }
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception
+    {
+        for (int i = 0; i < 100; i++) {
+            String content = result.getResponse().getContentAsString();
+            if (content.contains(expected)) {
+                return content;
+            }
+            Thread.sleep(50);
+        }
+        return result.getResponse().getContentAsString();
+    }
+}
@@ -1,7 +1,11 @@
 package com.mchudzik.restapi;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.AfterEach;
@@ -9,20 +13,31 @@ import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.mchudzik.restapi.enums.Status;
 import com.mchudzik.restapi.exceptions.TaskNotFoundException;
+import com.mchudzik.restapi.models.AssignmentBatch;
 import com.mchudzik.restapi.models.Task;
 import com.mchudzik.restapi.models.User;
 import com.mchudzik.restapi.repositories.TaskRepository;
 import com.mchudzik.restapi.repositories.UserRepository;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.transaction.Transactional;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -30,9 +45,13 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.Assert.assertNull;
 
 @SpringBootTest
@@ -48,6 +67,12 @@ class TaskControllerTests {
 	private MockMvc mockMvc;
 	@Autowired
 	private ObjectMapper objectMapper;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
 
 	private static final String TASKS_PATH = "/tasks";
 
@@ -66,6 +91,22 @@ class TaskControllerTests {
 		taskRepo.save(new Task("naprawianie hakow", "bol", Status.NEW, LocalDate.ofEpochDay(1)));
 		taskRepo.save(new Task("pisanie zadan rekrutacyjnych", "hakowanie", Status.IN_PROGRESS, LocalDate.ofEpochDay(2)));
 	}
+
+    private void assignAllUsersToAllTasks()
+    {
+        List<User> users = userRepo.findAll();
+        taskRepo.findAll().forEach(task -> users.forEach(user -> task.addUser(user.getId())));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private Statistics resetStatistics()
+    {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        return statistics;
+    }
     
     private void prepareUserRepo()
 	{
@@ -85,6 +126,166 @@ class TaskControllerTests {
         .andExpect(jsonPath("$._embedded.taskList", hasSize(3)));
     }
 
+    @Test
+    void testGetTasksPage() throws Exception{
+        //given
+        prepareTaskRepo();
+        Long firstId = taskRepo.findAll().get(0).getId();
+        Long secondId = taskRepo.findAll().get(1).getId();
+
+        //when
+        mockMvc.perform(get(TASKS_PATH).param("limit","2"))
+        //then
+        .andExpect(jsonPath("$._embedded.taskList", hasSize(2)))
+        .andExpect(jsonPath("$._embedded.taskList[0].id", is(firstId.intValue())))
+        .andExpect(jsonPath("$._links.self.href", endsWith("/tasks?limit=2")))
+        .andExpect(jsonPath("$._links.next.href", endsWith("/tasks?after=" + secondId + "&limit=2")));
+    }
+
+    @Test
+    void testGetTasksLastPage() throws Exception{
+        //given
+        prepareTaskRepo();
+        Long secondId = taskRepo.findAll().get(1).getId();
+        Long thirdId = taskRepo.findAll().get(2).getId();
+
+        //when
+        mockMvc.perform(get(TASKS_PATH).param("after",secondId.toString()).param("limit","2"))
+        //then
+        .andExpect(jsonPath("$._embedded.taskList", hasSize(1)))
+        .andExpect(jsonPath("$._embedded.taskList[0].id", is(thirdId.intValue())))
+        .andExpect(jsonPath("$._links.next").doesNotExist());
+    }
+
+    @Test
+    void testGetAllTasksLoadsAssigneesWithoutExtraQueries() throws Exception{
+        //given
+        prepareUserRepo();
+        prepareTaskRepo();
+        assignAllUsersToAllTasks();
+        Statistics statistics = resetStatistics();
+
+        //when
+        mockMvc.perform(get(TASKS_PATH))
+        //then
+        .andExpect(jsonPath("$._embedded.taskList", hasSize(3)))
+        .andExpect(jsonPath("$._embedded.taskList[*].assignedUsers", everyItem(hasSize(3))));
+
+        // ETag version stamp + task list with assignees
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testFindTaskByStatusLoadsAssigneesInSingleQuery() throws Exception{
+        //given
+        prepareUserRepo();
+        prepareTaskRepo();
+        assignAllUsersToAllTasks();
+        Statistics statistics = resetStatistics();
+
+        //when
+        mockMvc.perform(get(TASKS_PATH + "/byStatus").param("status",Status.IN_PROGRESS.toString()))
+        //then
+        .andExpect(jsonPath("$._embedded.taskList", hasSize(2)));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testFindTaskByUserKeepsAllAssignees() throws Exception{
+        //given
+        prepareUserRepo();
+        prepareTaskRepo();
+        assignAllUsersToAllTasks();
+        Long userId = userRepo.findAll().get(0).getId();
+        Statistics statistics = resetStatistics();
+
+        //when
+        mockMvc.perform(get(TASKS_PATH + "/byUser").param("userId",userId.toString()))
+        //then
+        .andExpect(jsonPath("$._embedded.taskList", hasSize(3)))
+        .andExpect(jsonPath("$._embedded.taskList[*].assignedUsers", everyItem(hasSize(3))));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testFindTaskByDeletedUser() throws Exception{
+        //given
+        prepareUserRepo();
+        prepareTaskRepo();
+        assignAllUsersToAllTasks();
+        Long userId = userRepo.findAll().get(0).getId();
+        userRepo.deleteById(userId);
+        userRepo.flush();
+
+        //when
+        mockMvc.perform(get(TASKS_PATH + "/byUser").param("userId",userId.toString()))
+        //then
+        .andExpect(jsonPath("$._embedded.taskList", hasSize(3)));
+        mockMvc.perform(get(TASKS_PATH + "/byUser").param("userId",userId.toString()).param("fields", "name"))
+        .andExpect(jsonPath("$._embedded.taskList", hasSize(3)));
+    }
+
+    @Test
+    void testGetTasksPageBatchesAssigneeLoading() throws Exception{
+        //given
+        prepareUserRepo();
+        prepareTaskRepo();
+        assignAllUsersToAllTasks();
+        Statistics statistics = resetStatistics();
+
+        //when
+        mockMvc.perform(get(TASKS_PATH).param("limit","3"))
+        //then
+        .andExpect(jsonPath("$._embedded.taskList[*].assignedUsers", everyItem(hasSize(3))));
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testExportTasks() throws Exception{
+        //given
+        prepareUserRepo();
+        prepareTaskRepo();
+        assignAllUsersToAllTasks();
+
+        //when
+        MvcResult result = mockMvc.perform(get(TASKS_PATH + "/export"))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+        .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        List<Task> exportedTasks = new ArrayList<>();
+        for (String line : lines) {
+            exportedTasks.add(objectMapper.readValue(line, Task.class));
+        }
+
+        //then
+        assertEquals(3, exportedTasks.size());
+        assertEquals(taskRepo.findAll(), exportedTasks);
+        exportedTasks.forEach(task -> assertEquals(3, task.getAssignedUsers().size()));
+    }
+
+    @Test
+    void testExportTasksBypassesSecondLevelCache() throws Exception{
+        //given
+        prepareUserRepo();
+        prepareTaskRepo();
+        assignAllUsersToAllTasks();
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = resetStatistics();
+
+        //when
+        mockMvc.perform(get(TASKS_PATH + "/export"))
+        .andExpect(status().isOk());
+
+        //then
+        assertEquals(0, statistics.getSecondLevelCachePutCount());
+        assertEquals(0, statistics.getSecondLevelCacheHitCount());
+    }
+
     @Test
     void testAddTask() throws Exception{
         //given
@@ -133,6 +334,66 @@ class TaskControllerTests {
         assertNull(repoTask.getFinishDate());
     }
 
+    @Test
+    void testAddTasksInBulk() throws Exception{
+        //given
+        List<Task> tasks = List.of(
+            new Task("granie w gre", "tomb rajder", Status.NEW, LocalDate.ofEpochDay(3)),
+            new Task("spanie", null, Status.IN_PROGRESS, LocalDate.ofEpochDay(4)));
+
+        //when
+        mockMvc.perform(post(TASKS_PATH + "/bulk")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(tasks)))
+        //then
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[*].index", contains(0, 1)))
+        .andExpect(jsonPath("$[*].status", everyItem(is(201))))
+        .andExpect(jsonPath("$[*].id", everyItem(notNullValue())));
+
+        assertEquals(2, taskRepo.count());
+    }
+
+    @Test
+    void testEditTasksInBulk() throws Exception{
+        //given
+        prepareTaskRepo();
+        Task existing = taskRepo.findAll().get(0);
+        Task edit = new Task(null, null, Status.COMPLETED, null);
+        edit.setID(existing.getId());
+        Task missing = new Task("nic", null, null, null);
+        missing.setID(Long.MAX_VALUE);
+
+        //when
+        mockMvc.perform(patch(TASKS_PATH + "/bulk")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(List.of(edit, missing))))
+        //then
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[*].status", contains(200, 404)));
+
+        Task editedTask = taskRepo.findById(existing.getId()).get();
+        assertEquals(Status.COMPLETED, editedTask.getStatus());
+        assertEquals("hakowanie", editedTask.getName());
+    }
+
+    @Test
+    void testDeleteTasksInBulk() throws Exception{
+        //given
+        prepareTaskRepo();
+        List<Long> ids = List.of(taskRepo.findAll().get(0).getId(), taskRepo.findAll().get(1).getId(), Long.MAX_VALUE);
+
+        //when
+        mockMvc.perform(delete(TASKS_PATH + "/bulk")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(ids)))
+        //then
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[*].status", contains(204, 204, 404)));
+
+        assertEquals(1, taskRepo.count());
+    }
+
     @Test
 	void testDeleteTask() throws Exception{
 		//given
@@ -163,6 +424,20 @@ class TaskControllerTests {
 	}
 
     @Test
+	void testTaskLinksMatchControllerMappings() throws Exception{
+		//given
+		prepareTaskRepo();
+		List<Task> tasks = taskRepo.findAll();
+
+		//when
+		mockMvc.perform(get("http://example.com" + TASKS_PATH))
+		//then
+		.andExpect(jsonPath("$._embedded.taskList[0]._links.self.href", is("http://example.com/tasks/" + tasks.get(0).getId())))
+		.andExpect(jsonPath("$._embedded.taskList[2]._links.self.href", is("http://example.com/tasks/" + tasks.get(2).getId())))
+		.andExpect(jsonPath("$._embedded.taskList[*]._links.tasks.href", everyItem(is("http://example.com/tasks"))));
+	}
+
+	@Test
 	void testFindTask() throws Exception
 	{
 		//given
@@ -180,6 +455,62 @@ class TaskControllerTests {
 		assertEquals(taskRepo.findById(id).get(), foundTask);
 	}
 
+	@Test
+	void testFindTaskNotModified() throws Exception{
+		//given
+        prepareTaskRepo();
+		Long id = taskRepo.findAll().get(0).getId();
+		String eTag = mockMvc.perform(get(TASKS_PATH + "/{id}",id))
+		.andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+		.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		//when
+		mockMvc.perform(get(TASKS_PATH + "/{id}",id).header(HttpHeaders.IF_NONE_MATCH, eTag))
+		//then
+		.andExpect(status().isNotModified())
+		.andExpect(content().string(""));
+	}
+
+	@Test
+	void testGetAllTasksNotModifiedUntilChange() throws Exception{
+		//given
+        prepareTaskRepo();
+		String eTag = mockMvc.perform(get(TASKS_PATH))
+		.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		//when
+		mockMvc.perform(get(TASKS_PATH).header(HttpHeaders.IF_NONE_MATCH, eTag))
+		//then
+		.andExpect(status().isNotModified());
+
+		taskRepo.save(new Task("granie w gre", "tomb rajder", Status.NEW, LocalDate.ofEpochDay(3)));
+		mockMvc.perform(get(TASKS_PATH).header(HttpHeaders.IF_NONE_MATCH, eTag))
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$._embedded.taskList", hasSize(4)));
+	}
+
+	@Test
+	void testEditTaskWithStaleETag() throws Exception{
+		//given
+        prepareTaskRepo();
+		Long id = taskRepo.findAll().get(0).getId();
+		String requestJson = objectMapper.writeValueAsString(Status.COMPLETED);
+		mockMvc.perform(put(TASKS_PATH + "/status/{id}",id)
+		.contentType(MediaType.APPLICATION_JSON)
+		.content(requestJson)
+		.header(HttpHeaders.IF_MATCH, "\"0\""))
+		.andExpect(status().isCreated());
+		taskRepo.flush();
+
+		//when
+		mockMvc.perform(put(TASKS_PATH + "/status/{id}",id)
+		.contentType(MediaType.APPLICATION_JSON)
+		.content(requestJson)
+		.header(HttpHeaders.IF_MATCH, "\"0\""))
+		//then
+		.andExpect(status().isPreconditionFailed());
+	}
+
 	@Test
 	void testFindNonexistentTask() throws Exception{
 		//given
@@ -193,6 +524,7 @@ class TaskControllerTests {
 	}
 
     @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
 	void testFindTaskByName() throws Exception{
 		//given
         prepareTaskRepo();
@@ -209,6 +541,65 @@ class TaskControllerTests {
 		assertEquals(3, foundTasks.size());
 	}
 
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+	void testFindTaskByNameRanksNameMatchesFirst() throws Exception{
+		//given
+        prepareTaskRepo();
+
+		//when
+		mockMvc.perform(get(TASKS_PATH + "/byName").param("name","HAKOW"))
+		//then
+		.andExpect(jsonPath("$._embedded.taskList[*].name", contains("hakowanie", "naprawianie hakow", "pisanie zadan rekrutacyjnych")));
+	}
+
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+	void testFindTaskByNamePage() throws Exception{
+		//given
+        prepareTaskRepo();
+
+		//when
+		mockMvc.perform(get(TASKS_PATH + "/byName").param("name","hakow").param("page","0").param("size","2"))
+		//then
+		.andExpect(jsonPath("$._embedded.taskList", hasSize(2)))
+		.andExpect(jsonPath("$.page.totalElements", is(3)))
+		.andExpect(jsonPath("$._links.next.href", endsWith("/tasks/byName?name=hakow&page=1&size=2")));
+	}
+
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+	void testFindTaskByNameAfterEditAndDelete() throws Exception{
+		//given
+        prepareTaskRepo();
+		List<Task> tasks = taskRepo.findAll();
+		Task renamed = new Task("granie w gre", "tomb rajder", Status.NEW, LocalDate.ofEpochDay(3));
+
+		//when
+		mockMvc.perform(put(TASKS_PATH + "/{id}", tasks.get(0).getId())
+		.contentType(MediaType.APPLICATION_JSON)
+		.content(objectMapper.writeValueAsString(renamed)));
+		mockMvc.perform(delete(TASKS_PATH + "/{id}", tasks.get(1).getId()));
+
+		//then
+		mockMvc.perform(get(TASKS_PATH + "/byName").param("name","hakow"))
+		.andExpect(jsonPath("$._embedded.taskList[*].name", contains("pisanie zadan rekrutacyjnych")));
+		mockMvc.perform(get(TASKS_PATH + "/byName").param("name","rajd"))
+		.andExpect(jsonPath("$._embedded.taskList[*].id", contains(tasks.get(0).getId().intValue())));
+	}
+
+    @Test
+	void testFindTaskByNameSkipsUncommittedTasks() throws Exception{
+		//given
+        prepareTaskRepo();
+
+		//when
+		mockMvc.perform(get(TASKS_PATH + "/byName").param("name","hakow"))
+		//then
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$._embedded").doesNotExist());
+	}
+
     @Test
 	void testFindTaskByStatus() throws Exception{
 		//given
@@ -280,6 +671,62 @@ class TaskControllerTests {
         assertEquals(2,foundTasks.size());
     }
 
+    @Test
+    void testFilterTasksByStatusDateAndUser() throws Exception{
+        //given
+        prepareTaskRepo();
+        prepareUserRepo();
+        List<Task> tasks = taskRepo.findAll();
+        Long userId = userRepo.findAll().get(0).getId();
+        tasks.get(0).addUser(userId);
+        tasks.get(1).addUser(userId);
+        entityManager.flush();
+        entityManager.clear();
+
+        //when
+        mockMvc.perform(get(TASKS_PATH + "/filter")
+        .param("status", Status.IN_PROGRESS.toString())
+        .param("startDate", "1970-01-01")
+        .param("endDate", "1970-01-03")
+        .param("userId", userId.toString()))
+        //then
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.taskList", hasSize(1)))
+        .andExpect(jsonPath("$._embedded.taskList[0].id", is(tasks.get(0).getId().intValue())))
+        .andExpect(jsonPath("$._embedded.taskList[0].assignedUsers", contains(userId.intValue())));
+    }
+
+    @Test
+    void testFilterTasksWithPartialParameters() throws Exception{
+        //given
+        prepareTaskRepo();
+
+        //when
+        mockMvc.perform(get(TASKS_PATH + "/filter").param("startDate", "1970-01-02"))
+        //then
+        .andExpect(jsonPath("$._embedded.taskList", hasSize(2)));
+
+        mockMvc.perform(get(TASKS_PATH + "/filter"))
+        .andExpect(jsonPath("$._embedded.taskList", hasSize(3)));
+    }
+
+    @Test
+    void testFilterTasksByIncorrectStatus() throws Exception{
+        mockMvc.perform(get(TASKS_PATH + "/filter").param("status", "Teapot"))
+        .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void testFilterIndexesAreCreated() throws Exception{
+        //when
+        List<?> indexes = entityManager.createNativeQuery(
+            "select index_name from information_schema.indexes where index_name in ('task_status_finish_date_idx', 'task_finish_date_idx', 'task_assigned_users_user_idx')")
+        .getResultList();
+
+        //then
+        assertEquals(3, indexes.size());
+    }
+
     @Test
 	void testEditTask() throws Exception{
 		//given
@@ -362,7 +809,7 @@ class TaskControllerTests {
         //then
         .andExpect(status().isCreated());
 
-        assertEquals(userId,taskRepo.findAll().get(0).getAssignedUsers().get(0));
+        assertEquals(List.of(userId),taskRepo.findById(taskId).get().getAssignedUsers());
     }
 
     @Test
@@ -404,7 +851,8 @@ class TaskControllerTests {
         prepareTaskRepo();
         Long userId = userRepo.findAll().get(0).getId();
         Long taskId = taskRepo.findAll().get(0).getId();
-        taskRepo.findAll().get(0).addUser(userId);
+        taskRepo.findById(taskId).get().addUser(userId);
+        taskRepo.flush();
 
         //when
         mockMvc.perform(delete(TASKS_PATH)
@@ -412,6 +860,8 @@ class TaskControllerTests {
         .param("userId",userId.toString()))
         //then
         .andExpect(status().isNoContent());
+
+        assertEquals(List.of(),taskRepo.findById(taskId).get().getAssignedUsers());
     }
 
     @Test
@@ -431,6 +881,343 @@ class TaskControllerTests {
 
     }
 
+    @Test
+    void testAssignUsersInBatch() throws Exception{
+        //given
+        prepareUserRepo();
+        prepareTaskRepo();
+        List<Long> userIds = userRepo.findAll().stream().map(User::getId).toList();
+        Task task = taskRepo.findAll().get(0);
+        Long taskId = task.getId();
+        Long version = task.getVersion();
+        task.addUser(userIds.get(0));
+        taskRepo.flush();
+        String batch = objectMapper.writeValueAsString(new AssignmentBatch(List.of(taskId), userIds));
+
+        //when
+        mockMvc.perform(put(TASKS_PATH + "/assignments")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(batch))
+        //then
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.changed", is(2)));
+
+        Task assignedTask = taskRepo.findById(taskId).get();
+        assertEquals(userIds, assignedTask.getAssignedUsers());
+        assertEquals(version + 1, assignedTask.getVersion());
+
+        mockMvc.perform(put(TASKS_PATH + "/assignments")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(batch))
+        .andExpect(jsonPath("$.changed", is(0)));
+    }
+
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    void testAssignUsersInBatchEvictsCachedAssignees() throws Exception{
+        //given
+        prepareUserRepo();
+        prepareTaskRepo();
+        Long taskId = taskRepo.findAll().get(0).getId();
+        Long userId = userRepo.findAll().get(0).getId();
+        mockMvc.perform(get(TASKS_PATH + "/" + taskId))
+        .andExpect(jsonPath("$.assignedUsers", empty()));
+
+        //when
+        mockMvc.perform(put(TASKS_PATH + "/assignments")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(new AssignmentBatch(List.of(taskId), List.of(userId)))))
+        .andExpect(jsonPath("$.changed", is(1)));
+
+        //then
+        mockMvc.perform(get(TASKS_PATH + "/" + taskId))
+        .andExpect(jsonPath("$.assignedUsers", contains(userId.intValue())));
+    }
+
+    @Test
+    void testAssignNonexistentUsersInBatch() throws Exception{
+        //given
+        prepareUserRepo();
+        prepareTaskRepo();
+        Long taskId = taskRepo.findAll().get(0).getId();
+        Long userId = userRepo.findAll().get(0).getId();
+
+        //when
+        mockMvc.perform(put(TASKS_PATH + "/assignments")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(new AssignmentBatch(List.of(taskId), List.of(userId, Long.MAX_VALUE)))))
+        //then
+        .andExpect(status().isNotFound());
+
+        assertEquals(List.of(), taskRepo.findById(taskId).get().getAssignedUsers());
+    }
+
+    @Test
+    void testUnassignUsersInBatch() throws Exception{
+        //given
+        prepareUserRepo();
+        prepareTaskRepo();
+        assignAllUsersToAllTasks();
+        List<Long> taskIds = taskRepo.findAll().stream().map(Task::getId).toList();
+        Long userId = userRepo.findAll().get(0).getId();
+
+        //when
+        mockMvc.perform(delete(TASKS_PATH + "/assignments")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(new AssignmentBatch(taskIds, List.of(userId, Long.MAX_VALUE)))))
+        //then
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.changed", is(3)));
+
+        assertEquals(0, taskRepo.findAllByAssignedUser(userId).size());
+        assertEquals(2, taskRepo.findById(taskIds.get(0)).get().getAssignedUsers().size());
+    }
+
+    @Test
+    void testListTasksInCompactView() throws Exception{
+        //given
+        prepareTaskRepo();
+
+        //when
+        mockMvc.perform(get(TASKS_PATH).param("view", "compact").param("limit", "2"))
+        //then
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.taskList", hasSize(2)))
+        .andExpect(jsonPath("$._embedded.taskList[0].name", is("hakowanie")))
+        .andExpect(jsonPath("$._embedded.taskList[*]._links").doesNotExist())
+        .andExpect(jsonPath("$._links.task.href", is("http://localhost/tasks/{id}")))
+        .andExpect(jsonPath("$._links.task.templated", is(true)))
+        .andExpect(jsonPath("$._links.self.href", containsString("view=compact")))
+        .andExpect(jsonPath("$._links.next.href", containsString("view=compact")));
+    }
+
+    @Test
+    void testCompactViewSelectedByAcceptHeader() throws Exception{
+        //given
+        prepareTaskRepo();
+
+        //when
+        mockMvc.perform(get(TASKS_PATH + "/byStatus").param("status", "IN_PROGRESS")
+        .header(HttpHeaders.ACCEPT, "application/hal+json;view=compact"))
+        //then
+        .andExpect(status().isOk())
+        .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+        .andExpect(jsonPath("$._embedded.taskList", hasSize(2)))
+        .andExpect(jsonPath("$._embedded.taskList[*]._links").doesNotExist())
+        .andExpect(jsonPath("$._links.task.templated", is(true)));
+
+        mockMvc.perform(get(TASKS_PATH + "/byStatus").param("status", "IN_PROGRESS"))
+        .andExpect(jsonPath("$._embedded.taskList[0]._links.self.href", startsWith("http://localhost/tasks/")))
+        .andExpect(jsonPath("$._links.task").doesNotExist());
+    }
+
+    @Test
+    void testCompactViewHasItsOwnCollectionTag() throws Exception{
+        //given
+        prepareTaskRepo();
+        String fullTag = mockMvc.perform(get(TASKS_PATH))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        //when
+        mockMvc.perform(get(TASKS_PATH)
+        .header(HttpHeaders.ACCEPT, "application/hal+json;view=compact")
+        .header(HttpHeaders.IF_NONE_MATCH, fullTag))
+        //then
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, not(fullTag)))
+        .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+        .andExpect(jsonPath("$._embedded.taskList[*]._links").doesNotExist());
+    }
+
+    @Test
+    void testListTasksAsSmile() throws Exception{
+        //given
+        prepareTaskRepo();
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+        //when
+        byte[] body = mockMvc.perform(get(TASKS_PATH).header(HttpHeaders.ACCEPT, "application/x-jackson-smile"))
+        //then
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith("application/x-jackson-smile"))
+        .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode tasks = smileMapper.readTree(body);
+        assertEquals(3, tasks.at("/_embedded/taskList").size());
+        assertEquals("1970-01-01", tasks.at("/_embedded/taskList/0/finishDate").asText());
+        assertEquals("http://localhost/tasks", tasks.at("/_links/self/href").asText());
+    }
+
+    @Test
+    void testListTasksWithSelectedFields() throws Exception{
+        //given
+        prepareTaskRepo();
+        entityManager.flush();
+        Statistics statistics = resetStatistics();
+
+        //when
+        mockMvc.perform(get(TASKS_PATH).param("fields", "name,status"))
+        //then
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.taskList", hasSize(3)))
+        .andExpect(jsonPath("$._embedded.taskList[0].id").isNumber())
+        .andExpect(jsonPath("$._embedded.taskList[0].name", is("hakowanie")))
+        .andExpect(jsonPath("$._embedded.taskList[0].status", is("IN_PROGRESS")))
+        .andExpect(jsonPath("$._embedded.taskList[0].desc").doesNotExist())
+        .andExpect(jsonPath("$._embedded.taskList[0].assignedUsers").doesNotExist())
+        .andExpect(jsonPath("$._embedded.taskList[0]._links.self.href", startsWith("http://localhost/tasks/")))
+        .andExpect(jsonPath("$._links.self.href", is("http://localhost/tasks?fields=name&fields=status")));
+
+        // ETag version stamp + the selected columns
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testFindTaskByStatusWithAssignedUsersField() throws Exception{
+        //given
+        prepareUserRepo();
+        prepareTaskRepo();
+        assignAllUsersToAllTasks();
+
+        //when
+        mockMvc.perform(get(TASKS_PATH + "/byStatus").param("status", Status.IN_PROGRESS.toString()).param("fields", "name,assignedUsers"))
+        //then
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.taskList", hasSize(2)))
+        .andExpect(jsonPath("$._embedded.taskList[*].assignedUsers", everyItem(hasSize(3))))
+        .andExpect(jsonPath("$._embedded.taskList[0].status").doesNotExist());
+    }
+
+    @Test
+    void testGetTasksPageWithSelectedFields() throws Exception{
+        //given
+        prepareTaskRepo();
+
+        //when
+        mockMvc.perform(get(TASKS_PATH).param("limit", "2").param("fields", "name"))
+        //then
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.taskList", hasSize(2)))
+        .andExpect(jsonPath("$._embedded.taskList[1].name", is("naprawianie hakow")))
+        .andExpect(jsonPath("$._links.next.href", containsString("fields=name")));
+    }
+
+    @Test
+    void testListTasksWithUnknownField() throws Exception{
+        //given
+        prepareTaskRepo();
+
+        //when
+        mockMvc.perform(get(TASKS_PATH).param("fields", "name,password"))
+        //then
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string(containsString("password")));
+    }
+
+    @Test
+    void testListTasksWithUnserializedField() throws Exception{
+        //given
+        prepareTaskRepo();
+
+        //when
+        mockMvc.perform(get(TASKS_PATH).param("fields", "name,txid"))
+        //then
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string(containsString("txid")));
+    }
+
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    void testSyncTasksModifiedSince() throws Exception{
+        //given
+        prepareUserRepo();
+        prepareTaskRepo();
+        List<Task> tasks = taskRepo.findAll();
+        Long userId = userRepo.findAll().get(0).getId();
+        Instant since = Instant.now();
+
+        //when
+        mockMvc.perform(put(TASKS_PATH + "/{id}", tasks.get(0).getId())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(new Task("granie w gre", "tomb rajder", Status.NEW, LocalDate.ofEpochDay(3)))))
+        .andExpect(status().isCreated());
+        mockMvc.perform(put(TASKS_PATH).param("taskId", tasks.get(1).getId().toString()).param("userId", userId.toString()))
+        .andExpect(status().isCreated());
+        mockMvc.perform(delete(TASKS_PATH + "/{id}", tasks.get(2).getId()))
+        .andExpect(status().isNoContent());
+
+        //then
+        mockMvc.perform(get(TASKS_PATH).param("modifiedSince", since.toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.taskList[*].id", contains(tasks.get(0).getId().intValue(), tasks.get(1).getId().intValue())))
+        .andExpect(jsonPath("$._embedded.taskList[0].name", is("granie w gre")))
+        .andExpect(jsonPath("$._embedded.taskList[1].assignedUsers", contains(userId.intValue())))
+        .andExpect(jsonPath("$.deleted", contains(tasks.get(2).getId().intValue())))
+        .andExpect(jsonPath("$.syncedTo").isString())
+        .andExpect(jsonPath("$._links.sync.href", containsString("modifiedSince=")));
+    }
+
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    void testSyncTasksWithSelectedFields() throws Exception{
+        //given
+        prepareTaskRepo();
+        Instant since = Instant.now();
+        Long id = taskRepo.findAll().get(0).getId();
+
+        //when
+        mockMvc.perform(put(TASKS_PATH + "/status/" + id)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("\"" + Status.COMPLETED + "\""));
+
+        //then
+        mockMvc.perform(get(TASKS_PATH).param("modifiedSince", since.toString()).param("fields", "status,lastModified"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.taskList", hasSize(1)))
+        .andExpect(jsonPath("$._embedded.taskList[0].status", is("COMPLETED")))
+        .andExpect(jsonPath("$._embedded.taskList[0].lastModified").isString())
+        .andExpect(jsonPath("$._embedded.taskList[0].name").doesNotExist())
+        .andExpect(jsonPath("$.deleted", hasSize(0)));
+    }
+
+    @Test
+    void testSyncTasksFromBeforeTombstoneRetention() throws Exception{
+        //when
+        mockMvc.perform(get(TASKS_PATH).param("modifiedSince", "2000-01-01T00:00:00Z"))
+        //then
+        .andExpect(status().isGone());
+    }
+
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    void testSyncPointStaysBeforeOpenWrites() throws Exception{
+        //given
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch synced = new CountDownLatch(1);
+        CompletableFuture<Long> created = CompletableFuture.supplyAsync(() -> new TransactionTemplate(transactionManager).execute(status -> {
+            Long id = taskRepo.saveAndFlush(new Task("hakowanie", "bol", Status.NEW, LocalDate.ofEpochDay(0))).getId();
+            written.countDown();
+            try {
+                synced.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return id;
+        }));
+        written.await();
 
+        //when
+        MvcResult result = mockMvc.perform(get(TASKS_PATH).param("modifiedSince", Instant.now().minusSeconds(60).toString()))
+        .andExpect(jsonPath("$._embedded").doesNotExist())
+        .andReturn();
+        Instant syncedTo = Instant.parse(objectMapper.readTree(result.getResponse().getContentAsString()).get("syncedTo").asText());
+        synced.countDown();
+        Long id = created.get();
 
+        //then
+        assertFalse(syncedTo.isAfter(taskRepo.findById(id).get().getLastModified().minusSeconds(1)));
+        mockMvc.perform(get(TASKS_PATH).param("modifiedSince", syncedTo.toString()))
+        .andExpect(jsonPath("$._embedded.taskList[*].id", contains(id.intValue())));
+    }
 }
@@ -0,0 +1,180 @@
+package com.mchudzik.restapi;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.models.User;
+import com.mchudzik.restapi.repositories.TaskRepository;
+import com.mchudzik.restapi.repositories.UserRepository;
+import com.mchudzik.restapi.stats.TaskStatistics;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TaskStatsTests {
+
+    @Autowired
+    private TaskRepository taskRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private TaskStatistics statistics;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final String TASKS_PATH = "/tasks";
+    private static final String STATS_PATH = "/tasks/stats";
+
+    @BeforeEach
+    public void loadStatistics()
+    {
+        taskRepo.deleteAll();
+        userRepo.deleteAll();
+        statistics.rebuild();
+    }
+
+    @AfterEach
+    public void resetTaskRepo()
+    {
+        taskRepo.deleteAll();
+        userRepo.deleteAll();
+    }
+
+    private MvcResult createTask(String name, Status status, LocalDate finishDate) throws Exception
+    {
+        return mockMvc.perform(post(TASKS_PATH)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(new Task(name, "bol", status, finishDate))))
+        .andExpect(status().isCreated())
+        .andReturn();
+    }
+
+    private Long idOf(MvcResult result) throws Exception
+    {
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+    }
+
+    @Test
+    void testStatsFollowTaskChanges() throws Exception{
+        //given
+        Long userId = userRepo.save(new User("jan", "jowalski", "jjowalski@gmail.com")).getId();
+        MvcResult first = createTask("hakowanie", Status.NEW, LocalDate.now().plusDays(1));
+        Long second = idOf(createTask("pisanie", Status.NEW, LocalDate.now().plusDays(1)));
+        Long third = idOf(createTask("czytanie", Status.IN_PROGRESS, LocalDate.now().plusDays(1)));
+
+        //when
+        mockMvc.perform(put(TASKS_PATH + "/status/" + idOf(first))
+        .header(HttpHeaders.IF_MATCH, "\"0\"")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("\"" + Status.COMPLETED + "\""))
+        .andExpect(status().isCreated());
+        mockMvc.perform(put(TASKS_PATH).param("taskId", second.toString()).param("userId", userId.toString()));
+        mockMvc.perform(put(TASKS_PATH).param("taskId", third.toString()).param("userId", userId.toString()));
+        mockMvc.perform(delete(TASKS_PATH).param("taskId", third.toString()).param("userId", userId.toString()));
+        mockMvc.perform(delete(TASKS_PATH + "/" + second)).andExpect(status().isNoContent());
+
+        //then
+        mockMvc.perform(get(STATS_PATH))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.total", is(2)))
+        .andExpect(jsonPath("$.byStatus.COMPLETED", is(1)))
+        .andExpect(jsonPath("$.byStatus.IN_PROGRESS", is(1)))
+        .andExpect(jsonPath("$.byStatus.NEW", is(0)))
+        .andExpect(jsonPath("$.byUser", anEmptyMap()))
+        .andExpect(jsonPath("$.overdue", is(0)));
+    }
+
+    @Test
+    void testStatsCountAssignedUsers() throws Exception{
+        //given
+        Long userId = userRepo.save(new User("jan", "jowalski", "jjowalski@gmail.com")).getId();
+        Long first = idOf(createTask("hakowanie", Status.NEW, LocalDate.now()));
+        Long second = idOf(createTask("pisanie", Status.NEW, LocalDate.now()));
+
+        //when
+        mockMvc.perform(put(TASKS_PATH).param("taskId", first.toString()).param("userId", userId.toString()));
+        mockMvc.perform(put(TASKS_PATH).param("taskId", second.toString()).param("userId", userId.toString()));
+        mockMvc.perform(put(TASKS_PATH).param("taskId", second.toString()).param("userId", userId.toString()));
+
+        //then
+        mockMvc.perform(get(STATS_PATH))
+        .andExpect(jsonPath("$.byUser." + userId, is(2)));
+    }
+
+    @Test
+    void testStatsCountOpenTasksPastFinishDate() throws Exception{
+        //given
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        createTask("hakowanie", Status.NEW, yesterday);
+        createTask("pisanie", Status.IN_VERIFICATION, yesterday);
+        createTask("czytanie", Status.COMPLETED, yesterday);
+        createTask("liczenie", Status.NEW, LocalDate.now());
+
+        //when
+        mockMvc.perform(get(STATS_PATH))
+
+        //then
+        .andExpect(jsonPath("$.total", is(4)))
+        .andExpect(jsonPath("$.overdue", is(2)));
+    }
+
+    @Test
+    void testReconcileCatchesChangesMadePastTheController() throws Exception{
+        //given
+        Long userId = userRepo.save(new User("jan", "jowalski", "jjowalski@gmail.com")).getId();
+        Long id = idOf(createTask("hakowanie", Status.NEW, LocalDate.now().minusDays(1)));
+        createTask("pisanie", Status.ABANDONED, LocalDate.now());
+        mockMvc.perform(put(TASKS_PATH).param("taskId", id.toString()).param("userId", userId.toString()));
+        var kept = statistics.stats();
+
+        //when
+        taskRepo.save(new Task("czytanie", "bol", Status.NEW, LocalDate.now()));
+        statistics.reconcile();
+
+        //then
+        var rebuilt = statistics.stats();
+        assertEquals(kept.total() + 1, rebuilt.total());
+        assertEquals(kept.byStatus().get(Status.NEW) + 1, rebuilt.byStatus().get(Status.NEW));
+        assertEquals(kept.byUser(), rebuilt.byUser());
+        assertEquals(1, rebuilt.overdue());
+    }
+
+    @Test
+    void testChangesAfterReconcileBuildOnTheCorrectedCounters() throws Exception{
+        //given
+        Long id = taskRepo.save(new Task("czytanie", "bol", Status.NEW, LocalDate.now().minusDays(1))).getId();
+        statistics.reconcile();
+
+        //when
+        mockMvc.perform(delete(TASKS_PATH + "/" + id)).andExpect(status().isNoContent());
+
+        //then
+        mockMvc.perform(get(STATS_PATH))
+        .andExpect(jsonPath("$.total", is(0)))
+        .andExpect(jsonPath("$.byStatus.NEW", is(0)))
+        .andExpect(jsonPath("$.overdue", is(0)));
+    }
+}
@@ -5,7 +5,18 @@ import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({UserControllerTests.class,
-    TaskControllerTests.class})
+    TaskControllerTests.class,
+    StatusUpdateQueueTests.class,
+    ObservabilityTests.class,
+    PostgresProfileTests.class,
+    FileUserControllerTests.class,
+    FileTaskControllerTests.class,
+    H2SnapshotsTests.class,
+    CompressionTests.class,
+    TaskChangeTests.class,
+    TaskStatsTests.class,
+    ThrottleTests.class,
+    EntityIdentityTests.class})
 public class TestSuit {
     
 }
@@ -0,0 +1,103 @@
+package com.mchudzik.restapi;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+    "throttle.enabled=true",
+    "throttle.client-header=" + ThrottleTests.CLIENT,
+    "throttle.client.rate=1",
+    "throttle.client.burst=40",
+    "throttle.route.rate=1",
+    "throttle.route.burst=60",
+    "throttle.costs.get[/tasks]=20",
+    "throttle.costs.get[/users]=20",
+    "throttle.costs.get[/tasks/export]=20"})
+@AutoConfigureMockMvc
+class ThrottleTests {
+    static final String CLIENT = "X-Client";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testClientOverItsBudgetIsToldToRetry() throws Exception{
+        //given
+        mockMvc.perform(get("/tasks").header(CLIENT, "jan")).andExpect(status().isOk());
+        mockMvc.perform(get("/tasks").header(CLIENT, "jan")).andExpect(status().isOk());
+
+        //when
+        mockMvc.perform(get("/tasks").header(CLIENT, "jan"))
+
+        //then
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "20"));
+        mockMvc.perform(get("/tasks/1").header(CLIENT, "anna"))
+        .andExpect(status().isNotFound());
+        assertEquals(1, meterRegistry.counter("throttle.rejected", "reason", "client", "route", "GET /tasks").count());
+    }
+
+    @Test
+    void testRouteOverItsBudgetIsShedForAllClients() throws Exception{
+        //given
+        mockMvc.perform(get("/users").header(CLIENT, "a")).andExpect(status().isOk());
+        mockMvc.perform(get("/users").header(CLIENT, "b")).andExpect(status().isOk());
+        mockMvc.perform(get("/users").header(CLIENT, "c")).andExpect(status().isOk());
+
+        //when
+        mockMvc.perform(get("/users").header(CLIENT, "d"))
+
+        //then
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, not(emptyOrNullString())));
+        mockMvc.perform(get("/users/1").header(CLIENT, "d"))
+        .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testPageSizeDoesNotDiscountTheRouteCost() throws Exception{
+        //given
+        String client = "paged";
+        mockMvc.perform(get("/tasks").param("modifiedSince", Instant.now().minusSeconds(60).toString()).param("limit", "1").header(CLIENT, client))
+        .andExpect(status().isOk());
+        mockMvc.perform(get("/tasks/export").param("limit", "1").header(CLIENT, client))
+        .andExpect(status().isOk());
+
+        //when
+        mockMvc.perform(get("/tasks/export").param("limit", "1").header(CLIENT, client))
+
+        //then
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "20"));
+    }
+
+    @Test
+    void testActuatorIsNotThrottled() throws Exception{
+        //given
+        String client = "monitor";
+
+        //when
+        for (int i = 0; i < 50; i++) {
+            mockMvc.perform(get("/actuator/health").header(CLIENT, client))
+
+            //then
+            .andExpect(status().isOk());
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -16,11 +17,13 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 
+import java.time.Instant;
 import java.util.List;
 
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -30,6 +33,11 @@ import com.mchudzik.restapi.exceptions.UserNotFoundException;
 import com.mchudzik.restapi.models.User;
 import com.mchudzik.restapi.repositories.UserRepository;
 
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
 @SpringBootTest
 @AutoConfigureMockMvc
 class UserControllerTests {
@@ -39,6 +47,8 @@ class UserControllerTests {
 	private MockMvc mockMvc;
 	@Autowired
 	private ObjectMapper objectMapper;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
 
 	private static final String USERS_PATH = "/users";
 
@@ -68,6 +78,35 @@ class UserControllerTests {
 				.andExpect(jsonPath("$._embedded.userList", hasSize(3)));
 	}
 
+	@Test
+	void testGetUsersPage() throws Exception {
+		//given
+		prepareUserRepo();
+		Long firstId = repo.findAll().get(0).getId();
+		Long secondId = repo.findAll().get(1).getId();
+
+		//when
+		mockMvc.perform(get(USERS_PATH).param("limit", "2"))
+				//then
+				.andExpect(jsonPath("$._embedded.userList", hasSize(2)))
+				.andExpect(jsonPath("$._embedded.userList[0].id", is(firstId.intValue())))
+				.andExpect(jsonPath("$._links.self.href", endsWith("/users?limit=2")))
+				.andExpect(jsonPath("$._links.next.href", endsWith("/users?after=" + secondId + "&limit=2")));
+	}
+
+	@Test
+	void testGetUsersLastPage() throws Exception {
+		//given
+		prepareUserRepo();
+		Long secondId = repo.findAll().get(1).getId();
+
+		//when
+		mockMvc.perform(get(USERS_PATH).param("after", secondId.toString()).param("limit", "2"))
+				//then
+				.andExpect(jsonPath("$._embedded.userList", hasSize(1)))
+				.andExpect(jsonPath("$._links.next").doesNotExist());
+	}
+
 	@Test
 	void testAddUser() throws Exception {
 
@@ -159,6 +198,20 @@ class UserControllerTests {
 		assertNull(user);
 	}
 
+	@Test
+	void testUserLinksMatchControllerMappings() throws Exception{
+		//given
+		prepareUserRepo();
+		List<User> users = repo.findAll();
+
+		//when
+		mockMvc.perform(get("http://example.com" + USERS_PATH))
+		//then
+		.andExpect(jsonPath("$._embedded.userList[0]._links.self.href", is("http://example.com/users/" + users.get(0).getId())))
+		.andExpect(jsonPath("$._embedded.userList[2]._links.self.href", is("http://example.com/users/" + users.get(2).getId())))
+		.andExpect(jsonPath("$._embedded.userList[*]._links.users.href", everyItem(is("http://example.com/users"))));
+	}
+
 	@Test
 	void testFindUser() throws Exception
 	{
@@ -206,6 +259,30 @@ class UserControllerTests {
 		assertEquals(3, foundUsers.size());
 	}
 
+	@Test
+	void testFindUserByNameRanksNameMatchesFirst() throws Exception{
+		//given
+		prepareUserRepo();
+
+		//when
+		mockMvc.perform(get(USERS_PATH + "/byName").param("name","JO"))
+				//then
+				.andExpect(jsonPath("$._embedded.userList[*].name", contains("john", "jan", "dan")));
+	}
+
+	@Test
+	void testFindUserByNamePage() throws Exception{
+		//given
+		prepareUserRepo();
+
+		//when
+		mockMvc.perform(get(USERS_PATH + "/byName").param("name","j").param("page","1").param("size","2"))
+				//then
+				.andExpect(jsonPath("$._embedded.userList", hasSize(1)))
+				.andExpect(jsonPath("$.page.totalElements", is(3)))
+				.andExpect(jsonPath("$._links.next").doesNotExist());
+	}
+
 	@Test
 	void testEditUser() throws Exception{
 		//given
@@ -232,6 +309,93 @@ class UserControllerTests {
 		assertEquals(user.getEmail(), createdUser.getEmail());
 		}
 
+	@Test
+	void testEditMissingUser() throws Exception{
+		//given
+		String requestJson = objectMapper.writeValueAsString(new User("michal", "chudzik", "mchudzik@gmail.com"));
+
+		//when
+		mockMvc.perform(put(USERS_PATH + "/{id}", 12345L)
+		.contentType(MediaType.APPLICATION_JSON)
+		.content(requestJson))
+		//then
+		.andExpect(status().isNotFound());
+		assertEquals(0, repo.count());
+	}
+
+	@Test
+	void testFindUserServedFromSecondLevelCache() throws Exception{
+		//given
+		prepareUserRepo();
+		Long id = repo.findAll().get(0).getId();
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+
+		//when
+		mockMvc.perform(get(USERS_PATH + "/{id}",id))
+				.andExpect(status().isOk());
+
+		//then
+		assertEquals(0, statistics.getPrepareStatementCount());
+		assertEquals(1, statistics.getSecondLevelCacheHitCount());
+	}
+
+	@Test
+	void testEditUserRefreshesSecondLevelCache() throws Exception{
+		//given
+		prepareUserRepo();
+		Long id = repo.findAll().get(0).getId();
+		mockMvc.perform(get(USERS_PATH + "/{id}",id));
+		User user = new User("michal", "chudzik", "mchudzik@gmail.com");
+
+		//when
+		mockMvc.perform(put(USERS_PATH + "/{id}",id)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(user)));
+
+		//then
+		mockMvc.perform(get(USERS_PATH + "/{id}",id))
+				.andExpect(jsonPath("$.name", is("michal")));
+		mockMvc.perform(delete(USERS_PATH + "/{id}",id));
+		mockMvc.perform(get(USERS_PATH + "/{id}",id))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void testFindUserNotModified() throws Exception{
+		//given
+		prepareUserRepo();
+		Long id = repo.findAll().get(0).getId();
+
+		//when
+		mockMvc.perform(get(USERS_PATH + "/{id}",id).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+				//then
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void testEditUserWithETag() throws Exception{
+		//given
+		prepareUserRepo();
+		Long id = repo.findAll().get(0).getId();
+		String requestJson = objectMapper.writeValueAsString(new User("michal", "chudzik", "mchudzik@gmail.com"));
+
+		//when
+		mockMvc.perform(put(USERS_PATH + "/{id}",id)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(requestJson)
+				.header(HttpHeaders.IF_MATCH, "\"0\""))
+				//then
+				.andExpect(status().isCreated())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+		mockMvc.perform(put(USERS_PATH + "/{id}",id)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(requestJson)
+				.header(HttpHeaders.IF_MATCH, "\"0\""))
+				.andExpect(status().isPreconditionFailed());
+	}
+
 	@Test
 	void testUnsupportedRequest() throws Exception{
 		//when
@@ -239,4 +403,74 @@ class UserControllerTests {
 		//then
 		.andExpect(status().isBadRequest());
 	}
+
+	@Test
+	void testFindUserByStringInCompactView() throws Exception{
+		//given
+		prepareUserRepo();
+
+		//when
+		mockMvc.perform(get(USERS_PATH + "/byName").param("name", "jo").param("view", "compact"))
+		//then
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$._embedded.userList", hasSize(3)))
+		.andExpect(jsonPath("$._embedded.userList[*]._links").doesNotExist())
+		.andExpect(jsonPath("$._links.user.href", is("http://localhost/users/{id}")))
+		.andExpect(jsonPath("$._links.self.href", containsString("view=compact")));
+	}
+
+	@Test
+	void testFindUserByStringWithSelectedFields() throws Exception{
+		//given
+		prepareUserRepo();
+
+		//when
+		mockMvc.perform(get(USERS_PATH + "/byName").param("name", "jo").param("fields", "email"))
+		//then
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$._embedded.userList", hasSize(3)))
+		.andExpect(jsonPath("$._embedded.userList[*].email", hasItem("jdoe@domain.com")))
+		.andExpect(jsonPath("$._embedded.userList[0].name").doesNotExist())
+		.andExpect(jsonPath("$._embedded.userList[0].id").isNumber());
+	}
+
+	@Test
+	void testGetUsersPageWithSelectedFields() throws Exception{
+		//given
+		prepareUserRepo();
+
+		//when
+		mockMvc.perform(get(USERS_PATH).param("limit", "2").param("fields", "name"))
+		//then
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$._embedded.userList", hasSize(2)))
+		.andExpect(jsonPath("$._embedded.userList[0].name", is("jan")))
+		.andExpect(jsonPath("$._embedded.userList[0].surname").doesNotExist())
+		.andExpect(jsonPath("$._links.next.href", containsString("fields=name")));
+	}
+
+	@Test
+	void testSyncUsersModifiedSince() throws Exception{
+		//given
+		prepareUserRepo();
+		repo.flush();
+		List<User> users = repo.findAll();
+		Instant since = Instant.now();
+
+		//when
+		mockMvc.perform(put(USERS_PATH + "/{id}", users.get(0).getId())
+		.contentType(MediaType.APPLICATION_JSON)
+		.content(objectMapper.writeValueAsString(new User("jan", "kowalski", "jkowalski@gmail.com"))))
+		.andExpect(status().isCreated());
+		mockMvc.perform(delete(USERS_PATH + "/{id}", users.get(1).getId()))
+		.andExpect(status().isNoContent());
+
+		//then
+		mockMvc.perform(get(USERS_PATH).param("modifiedSince", since.toString()))
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$._embedded.userList", hasSize(1)))
+		.andExpect(jsonPath("$._embedded.userList[0].surname", is("kowalski")))
+		.andExpect(jsonPath("$.deleted", contains(users.get(1).getId().intValue())))
+		.andExpect(jsonPath("$._links.sync.href", containsString("modifiedSince=")));
+	}
 }
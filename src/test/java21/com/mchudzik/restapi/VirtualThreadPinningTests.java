@@ -0,0 +1,82 @@
+package com.mchudzik.restapi;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.mchudzik.restapi.repositories.TaskRepository;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("virtual-threads")
+class VirtualThreadPinningTests {
+    private static final int CLIENTS = 200;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private TaskRepository taskRepo;
+
+    @AfterEach
+    public void resetTaskRepo()
+    {
+        taskRepo.deleteAll();
+    }
+
+    @Test
+    void testJpaPathsDoNotPinCarrierThreads() throws Exception{
+        //given
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        HttpClient client = HttpClient.newHttpClient();
+        String task = "{\"name\":\"hakowanie\",\"desc\":\"bol\",\"status\":\"NEW\",\"finishDate\":\"1970-01-01\"}";
+
+        try (RecordingStream events = new RecordingStream()) {
+            events.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            events.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            events.startAsync();
+
+            //when
+            List<Integer> statuses = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<Integer>> responses = new ArrayList<>();
+                for (int i = 0; i < CLIENTS; i++) {
+                    HttpRequest request = i % 2 == 0
+                        ? HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/tasks"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(task)).build()
+                        : HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/tasks/byStatus?status=NEW")).build();
+                    responses.add(executor.submit(() -> client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()));
+                }
+                for (Future<Integer> response : responses) {
+                    statuses.add(response.get());
+                }
+            }
+            events.stop();
+
+            //then
+            assertEquals(CLIENTS, statuses.size());
+            assertTrue(statuses.stream().allMatch(status -> status == 200 || status == 201), statuses.toString());
+        }
+        assertTrue(pinned.isEmpty(), () -> pinned.get(0).getStackTrace().toString());
+    }
+}
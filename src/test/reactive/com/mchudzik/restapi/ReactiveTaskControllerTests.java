@@ -0,0 +1,365 @@
+package com.mchudzik.restapi;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.mchudzik.restapi.enums.Status;
+import com.mchudzik.restapi.models.AssignmentBatch;
+import com.mchudzik.restapi.models.BulkItemResult;
+import com.mchudzik.restapi.models.Task;
+import com.mchudzik.restapi.models.User;
+import com.mchudzik.restapi.repositories.ReactiveTaskRepository;
+import com.mchudzik.restapi.repositories.ReactiveUserRepository;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+class ReactiveTaskControllerTests {
+
+    @Autowired
+    private ReactiveTaskRepository taskRepo;
+    @Autowired
+    private ReactiveUserRepository userRepo;
+    @Autowired
+    private DatabaseClient databaseClient;
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private static final String TASKS_PATH = "/tasks";
+
+    @AfterEach
+    public void resetRepos()
+    {
+        databaseClient.sql("delete from task_assigned_users").then()
+        .then(taskRepo.deleteAll())
+        .then(userRepo.deleteAll())
+        .block();
+    }
+
+    private List<Task> prepareTaskRepo()
+    {
+        return taskRepo.saveAll(List.of(
+            new Task("hakowanie", "hakowanie hakowanie", Status.IN_PROGRESS, LocalDate.ofEpochDay(0)),
+            new Task("naprawianie hakow", "bol", Status.NEW, LocalDate.ofEpochDay(1)),
+            new Task("pisanie zadan rekrutacyjnych", "hakowanie", Status.IN_PROGRESS, LocalDate.ofEpochDay(2))))
+        .collectList()
+        .block();
+    }
+
+    private Task createTask(Task task)
+    {
+        return webTestClient.post().uri(TASKS_PATH)
+        .bodyValue(task)
+        .exchange()
+        .expectStatus().isCreated()
+        .expectBody(Task.class)
+        .returnResult()
+        .getResponseBody();
+    }
+
+    @Test
+    void testGetAllTasks()
+    {
+        //given
+        prepareTaskRepo();
+
+        //when
+        webTestClient.get().uri(TASKS_PATH)
+        .exchange()
+        //then
+        .expectStatus().isOk()
+        .expectBody().jsonPath("$").value(hasSize(3));
+    }
+
+    @Test
+    void testGetTasksPage()
+    {
+        //given
+        List<Task> tasks = prepareTaskRepo();
+
+        //when
+        webTestClient.get().uri(TASKS_PATH + "?after={after}&limit=1", tasks.get(0).getId())
+        .exchange()
+        //then
+        .expectBody()
+        .jsonPath("$").value(hasSize(1))
+        .jsonPath("$[0].id").isEqualTo(tasks.get(1).getId().intValue());
+    }
+
+    @Test
+    void testStreamTasksAsNdjson()
+    {
+        //given
+        prepareTaskRepo();
+
+        //when
+        List<Task> tasks = webTestClient.get().uri(TASKS_PATH + "/export")
+        .accept(MediaType.APPLICATION_NDJSON)
+        .exchange()
+        //then
+        .expectStatus().isOk()
+        .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+        .expectBodyList(Task.class)
+        .returnResult()
+        .getResponseBody();
+
+        assertEquals(3, tasks.size());
+        assertEquals("hakowanie", tasks.get(0).getName());
+    }
+
+    @Test
+    void testCreateTaskWithAssignees()
+    {
+        //given
+        User user = userRepo.save(new User("jan", "jowalski", "jjowalski@gmail.com")).block();
+        Task task = new Task("hakowanie", "bol", Status.NEW, LocalDate.ofEpochDay(0));
+        task.addUser(user.getId());
+
+        //when
+        Task created = createTask(task);
+
+        //then
+        webTestClient.get().uri(TASKS_PATH + "/{id}", created.getId())
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+        .expectBody()
+        .jsonPath("$.assignedUsers").value(contains(user.getId().intValue()));
+
+        webTestClient.get().uri(TASKS_PATH + "/byUser?userId={id}", user.getId())
+        .exchange()
+        .expectBody()
+        .jsonPath("$[*].id").value(contains(created.getId().intValue()));
+    }
+
+    @Test
+    void testFindNonexistentTask()
+    {
+        webTestClient.get().uri(TASKS_PATH + "/{id}", 1234)
+        .exchange()
+        .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testFindTaskByName()
+    {
+        //given
+        createTask(new Task("hakowanie", "bol", Status.NEW, LocalDate.ofEpochDay(0)));
+        createTask(new Task("pisanie", "hakowanie hakow", Status.NEW, LocalDate.ofEpochDay(0)));
+        createTask(new Task("pisanie", "czytanie", Status.NEW, LocalDate.ofEpochDay(0)));
+
+        //when
+        webTestClient.get().uri(TASKS_PATH + "/byName?name=hakowanie")
+        .exchange()
+        //then
+        .expectBody()
+        .jsonPath("$").value(hasSize(2))
+        .jsonPath("$[0].name").isEqualTo("hakowanie");
+    }
+
+    @Test
+    void testFindTaskByInvalidStatus()
+    {
+        webTestClient.get().uri(TASKS_PATH + "/byStatus?status=DONE")
+        .exchange()
+        .expectStatus().isEqualTo(406);
+    }
+
+    @Test
+    void testFindTaskBetweenDates()
+    {
+        //given
+        prepareTaskRepo();
+
+        //when
+        webTestClient.get().uri(TASKS_PATH + "/byDate?startDate=1970-01-02&endDate=1970-01-03")
+        .exchange()
+        //then
+        .expectBody()
+        .jsonPath("$").value(hasSize(2));
+    }
+
+    @Test
+    void testFilterTasksByStatusDateAndUser()
+    {
+        //given
+        List<Task> tasks = prepareTaskRepo();
+        User user = userRepo.save(new User("jan", "jowalski", "jjowalski@gmail.com")).block();
+        taskRepo.insertAssignment(tasks.get(0).getId(), user.getId())
+        .then(taskRepo.insertAssignment(tasks.get(1).getId(), user.getId()))
+        .block();
+
+        //when
+        webTestClient.get().uri(TASKS_PATH + "/filter?status=IN_PROGRESS&startDate=1970-01-01&endDate=1970-01-03&userId={userId}", user.getId())
+        .exchange()
+        //then
+        .expectBody()
+        .jsonPath("$[*].id").value(contains(tasks.get(0).getId().intValue()))
+        .jsonPath("$[0].assignedUsers").value(contains(user.getId().intValue()));
+
+        webTestClient.get().uri(TASKS_PATH + "/filter?startDate=1970-01-02")
+        .exchange()
+        .expectBody()
+        .jsonPath("$").value(hasSize(2));
+    }
+
+    @Test
+    void testAssignAndUnassignUser()
+    {
+        //given
+        Task task = prepareTaskRepo().get(0);
+        User user = userRepo.save(new User("jan", "jowalski", "jjowalski@gmail.com")).block();
+
+        //when
+        webTestClient.put().uri(TASKS_PATH + "?taskId={taskId}&userId={userId}", task.getId(), user.getId())
+        .exchange()
+        //then
+        .expectStatus().isCreated()
+        .expectBody()
+        .jsonPath("$.assignedUsers").value(contains(user.getId().intValue()));
+
+        //when
+        webTestClient.delete().uri(TASKS_PATH + "?taskId={taskId}&userId={userId}", task.getId(), user.getId())
+        .exchange()
+        //then
+        .expectStatus().isNoContent();
+
+        webTestClient.get().uri(TASKS_PATH + "/{id}", task.getId())
+        .exchange()
+        .expectBody()
+        .jsonPath("$.assignedUsers").value(empty());
+    }
+
+    @Test
+    void testAssignAndUnassignUsersInBatch()
+    {
+        //given
+        List<Long> taskIds = prepareTaskRepo().stream().map(Task::getId).toList();
+        User user = userRepo.save(new User("jan", "jowalski", "jjowalski@gmail.com")).block();
+        AssignmentBatch batch = new AssignmentBatch(taskIds, List.of(user.getId()));
+
+        //when
+        webTestClient.put().uri(TASKS_PATH + "/assignments")
+        .bodyValue(batch)
+        .exchange()
+        //then
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.changed").isEqualTo(3);
+
+        webTestClient.put().uri(TASKS_PATH + "/assignments")
+        .bodyValue(batch)
+        .exchange()
+        .expectBody()
+        .jsonPath("$.changed").isEqualTo(0);
+
+        webTestClient.put().uri(TASKS_PATH + "/assignments")
+        .bodyValue(new AssignmentBatch(taskIds, List.of(Long.MAX_VALUE)))
+        .exchange()
+        .expectStatus().isNotFound();
+
+        webTestClient.method(HttpMethod.DELETE).uri(TASKS_PATH + "/assignments")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(batch)
+        .exchange()
+        .expectBody()
+        .jsonPath("$.changed").isEqualTo(3);
+    }
+
+    @Test
+    void testEditTaskWithStaleETag()
+    {
+        //given
+        Task task = prepareTaskRepo().get(0);
+        Task newTask = new Task("pisanie", "bol", Status.COMPLETED, LocalDate.ofEpochDay(5));
+
+        //when
+        webTestClient.put().uri(TASKS_PATH + "/{id}", task.getId())
+        .header(HttpHeaders.IF_MATCH, "\"7\"")
+        .bodyValue(newTask)
+        .exchange()
+        //then
+        .expectStatus().isEqualTo(412);
+
+        webTestClient.put().uri(TASKS_PATH + "/{id}", task.getId())
+        .header(HttpHeaders.IF_MATCH, "\"0\"")
+        .bodyValue(newTask)
+        .exchange()
+        .expectStatus().isCreated()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+        .expectBody()
+        .jsonPath("$.name").isEqualTo("pisanie");
+    }
+
+    @Test
+    void testBulkCreateAndDeleteTasks()
+    {
+        //given
+        List<Task> newTasks = List.of(
+            new Task("hakowanie", "bol", Status.NEW, LocalDate.ofEpochDay(0)),
+            new Task("pisanie", "bol", Status.NEW, LocalDate.ofEpochDay(1)));
+
+        //when
+        List<BulkItemResult> created = webTestClient.post().uri(TASKS_PATH + "/bulk")
+        .bodyValue(newTasks)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBodyList(BulkItemResult.class)
+        .returnResult()
+        .getResponseBody();
+
+        //then
+        assertEquals(2, created.size());
+        assertEquals(2L, taskRepo.count().block());
+
+        webTestClient.method(HttpMethod.DELETE).uri(TASKS_PATH + "/bulk")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(List.of(created.get(0).id(), 1234L))
+        .exchange()
+        .expectBody()
+        .jsonPath("$[*].status").value(contains(204, 404));
+
+        assertEquals(1L, taskRepo.count().block());
+    }
+
+    @Test
+    void testGetAllTasksAsSmile() throws Exception
+    {
+        //given
+        prepareTaskRepo();
+
+        //when
+        byte[] body = webTestClient.get().uri(TASKS_PATH)
+        .accept(MediaType.parseMediaType("application/x-jackson-smile"))
+        .exchange()
+        //then
+        .expectStatus().isOk()
+        .expectHeader().contentTypeCompatibleWith("application/x-jackson-smile")
+        .expectBody(byte[].class)
+        .returnResult()
+        .getResponseBody();
+
+        JsonNode tasks = new ObjectMapper(new SmileFactory()).readTree(body);
+        assertEquals(3, tasks.size());
+        assertEquals("hakowanie", tasks.get(0).get("name").asText());
+        assertEquals("1970-01-01", tasks.get(0).get("finishDate").asText());
+    }
+}
@@ -0,0 +1,164 @@
+package com.mchudzik.restapi;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.mchudzik.restapi.models.User;
+import com.mchudzik.restapi.repositories.ReactiveUserRepository;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+class ReactiveUserControllerTests {
+
+    @Autowired
+    private ReactiveUserRepository repo;
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private static final String USERS_PATH = "/users";
+
+    @AfterEach
+    public void resetRepo()
+    {
+        repo.deleteAll().block();
+    }
+
+    private List<User> prepareUserRepo()
+    {
+        return repo.saveAll(List.of(
+            new User("jan", "jowalski", "jjowalski@gmail.com"),
+            new User("john", "doe", "jdoe@domain.com"),
+            new User("dan", "jochanowski", "djochanowski@wp.com")))
+        .collectList()
+        .block();
+    }
+
+    @Test
+    void testGetAllUsers()
+    {
+        //given
+        prepareUserRepo();
+
+        //when
+        webTestClient.get().uri(USERS_PATH)
+        .exchange()
+        //then
+        .expectStatus().isOk()
+        .expectBody().jsonPath("$").value(hasSize(3));
+    }
+
+    @Test
+    void testGetUsersPage()
+    {
+        //given
+        List<User> users = prepareUserRepo();
+
+        //when
+        webTestClient.get().uri(USERS_PATH + "?after={after}&limit=5", users.get(0).getId())
+        .exchange()
+        //then
+        .expectBody()
+        .jsonPath("$[*].name").value(contains("john", "dan"));
+    }
+
+    @Test
+    void testAddAndFindUser()
+    {
+        //when
+        User created = webTestClient.post().uri(USERS_PATH)
+        .bodyValue(new User("jan", "jowalski", "jjowalski@gmail.com"))
+        .exchange()
+        .expectStatus().isCreated()
+        .expectHeader().exists(HttpHeaders.LOCATION)
+        .expectBody(User.class)
+        .returnResult()
+        .getResponseBody();
+
+        //then
+        webTestClient.get().uri(USERS_PATH + "/{id}", created.getId())
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+        .expectBody()
+        .jsonPath("$.email").isEqualTo("jjowalski@gmail.com");
+
+        webTestClient.get().uri(USERS_PATH + "/byName?name=jowal")
+        .exchange()
+        .expectBody()
+        .jsonPath("$[*].id").value(contains(created.getId().intValue()));
+    }
+
+    @Test
+    void testFindNonexistentUser()
+    {
+        webTestClient.get().uri(USERS_PATH + "/{id}", 1234)
+        .exchange()
+        .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testEditUser()
+    {
+        //given
+        User user = prepareUserRepo().get(0);
+
+        //when
+        webTestClient.put().uri(USERS_PATH + "/{id}", user.getId())
+        .header(HttpHeaders.IF_MATCH, "\"0\"")
+        .bodyValue(new User("janusz", "jowalski", "janusz@gmail.com"))
+        .exchange()
+        //then
+        .expectStatus().isCreated()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+        .expectBody()
+        .jsonPath("$.name").isEqualTo("janusz");
+
+        assertEquals("janusz@gmail.com", repo.findById(user.getId()).block().getEmail());
+    }
+
+    @Test
+    void testEditNonexistentUser()
+    {
+        webTestClient.put().uri(USERS_PATH + "/{id}", 1234)
+        .bodyValue(new User("janusz", "jowalski", "janusz@gmail.com"))
+        .exchange()
+        .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testEditNonexistentUserWithIfMatch()
+    {
+        webTestClient.put().uri(USERS_PATH + "/{id}", 1234)
+        .header(HttpHeaders.IF_MATCH, "\"0\"")
+        .bodyValue(new User("janusz", "jowalski", "janusz@gmail.com"))
+        .exchange()
+        .expectStatus().isEqualTo(412);
+    }
+
+    @Test
+    void testDeleteUser()
+    {
+        //given
+        User user = prepareUserRepo().get(0);
+
+        //when
+        webTestClient.delete().uri(USERS_PATH + "/{id}", user.getId())
+        .exchange()
+        //then
+        .expectStatus().isNoContent();
+
+        assertEquals(2L, repo.count().block());
+    }
+}